@@ -0,0 +1,183 @@
+package com.yrl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Keeps the first {@code capacity} elements, in comparator order, of
+ * everything added to it. The retained elements sit in a binary heap whose
+ * root is the worst one kept, so each add costs O(log k) and memory stays
+ * O(k) however many elements are offered. Elements that compare equal keep
+ * their insertion order.
+ */
+public class BoundedHeap<T> implements Iterable<T> {
+
+	private final Comparator<T> comparator;
+	private final int capacity;
+	private final Object[] elements;
+	private final long[] seqs;
+	private int size;
+	private long nextSeq;
+
+	public BoundedHeap(Comparator<T> c, int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Invalid capacity: " + capacity);
+		}
+		this.comparator = c;
+		this.capacity = capacity;
+		this.elements = new Object[capacity];
+		this.seqs = new long[capacity];
+		this.size = 0;
+		this.nextSeq = 0;
+	}
+
+	/**
+	 * Offers the given value {@code x}. It is kept if fewer than
+	 * {@code capacity} elements are held or if it sorts before the worst one
+	 * held, which is then dropped.
+	 *
+	 * @param x
+	 */
+	public void add(T x) {
+		long seq = this.nextSeq++;
+		if (this.size < this.capacity) {
+			this.elements[this.size] = x;
+			this.seqs[this.size] = seq;
+			this.siftUp(this.size);
+			this.size++;
+		} else if (this.size > 0 && this.compare(x, seq, 0) < 0) {
+			this.elements[0] = x;
+			this.seqs[0] = seq;
+			this.siftDown(0, this.size);
+		}
+	}
+
+	/**
+	 * Offers every value in {@code values}.
+	 *
+	 * @param values
+	 */
+	public void addAll(Iterable<T> values) {
+		for (T x : values) {
+			this.add(x);
+		}
+	}
+
+	/**
+	 * This function returns the number of elements currently kept.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the kept elements in comparator order.
+	 *
+	 * @return
+	 */
+	public List<T> toList() {
+		Object[] heap = this.elements.clone();
+		long[] heapSeqs = this.seqs.clone();
+		Object[] ordered = new Object[this.size];
+		BoundedHeap<T> copy = new BoundedHeap<>(this.comparator, heap, heapSeqs);
+		for (int n = this.size; n > 0; n--) {
+			ordered[n - 1] = heap[0];
+			copy.swap(0, n - 1);
+			copy.siftDown(0, n - 1);
+		}
+		List<T> result = new ArrayList<>(this.size);
+		for (Object o : ordered) {
+			result.add(this.elementOf(o));
+		}
+		return result;
+	}
+
+	/**
+	 * Iterates over the kept elements in comparator order.
+	 * @return
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return this.toList().iterator();
+	}
+
+	/**
+	 * Wraps existing heap arrays so {@link #toList()} can drain a copy in place.
+	 */
+	private BoundedHeap(Comparator<T> c, Object[] elements, long[] seqs) {
+		this.comparator = c;
+		this.capacity = elements.length;
+		this.elements = elements;
+		this.seqs = seqs;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T elementOf(Object o) {
+		return (T) o;
+	}
+
+	/**
+	 * Compares the candidate {@code x} inserted under {@code seq} against the
+	 * element at heap slot {@code j}.
+	 */
+	private int compare(T x, long seq, int j) {
+		int cmp = this.comparator.compare(x, this.elementOf(this.elements[j]));
+		if (cmp == 0) {
+			return Long.compare(seq, this.seqs[j]);
+		} else {
+			return cmp;
+		}
+	}
+
+	private int compare(int i, int j) {
+		return this.compare(this.elementOf(this.elements[i]), this.seqs[i], j);
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (this.compare(i, parent) <= 0) {
+				return;
+			}
+			this.swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i, int n) {
+		while (true) {
+			int largest = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < n && this.compare(left, largest) > 0) {
+				largest = left;
+			}
+			if (right < n && this.compare(right, largest) > 0) {
+				largest = right;
+			}
+			if (largest == i) {
+				return;
+			}
+			this.swap(i, largest);
+			i = largest;
+		}
+	}
+
+	private void swap(int i, int j) {
+		Object element = this.elements[i];
+		this.elements[i] = this.elements[j];
+		this.elements[j] = element;
+		long seq = this.seqs[i];
+		this.seqs[i] = this.seqs[j];
+		this.seqs[j] = seq;
+	}
+
+}
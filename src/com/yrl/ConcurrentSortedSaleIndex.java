@@ -0,0 +1,241 @@
+package com.yrl;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A sorted index that can be appended to while other threads read it. Entries
+ * live in a lock-free {@code ConcurrentSkipListSet}. Once an entry is in the
+ * set it is stamped from a shared commit clock, and a {@link View} taken at
+ * clock value {@code c} sees exactly the entries stamped at or before
+ * {@code c}, in sorted order, no matter what writers do afterwards. Writers
+ * never wait for each other: a view that meets an entry its writer has not
+ * stamped yet stamps it itself, with a value past its own, so the entry stays
+ * out of that view and every later look at it agrees. Elements that compare
+ * equal keep their insertion order.
+ */
+public class ConcurrentSortedSaleIndex<T> implements Iterable<T> {
+
+	/**
+	 * An element together with the sequence number it was inserted under.
+	 */
+	private static final class Entry<T> {
+
+		private static final AtomicLongFieldUpdater<Entry<?>> COMMIT = AtomicLongFieldUpdater
+				.newUpdater(castClass(), "commit");
+
+		private final T element;
+		private final long seq;
+		private volatile long commit;
+
+		private Entry(T element, long seq) {
+			this.element = element;
+			this.seq = seq;
+		}
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private static Class<Entry<?>> castClass() {
+			return (Class) Entry.class;
+		}
+
+		/**
+		 * Returns this entry's commit stamp, first setting it to the next clock
+		 * value if nobody has yet.
+		 */
+		private long stamp(AtomicLong clock) {
+			long c = this.commit;
+			if (c == 0) {
+				COMMIT.compareAndSet(this, 0, clock.incrementAndGet());
+				c = this.commit;
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * The entries added since the index was created or last cleared, and how
+	 * many of them have been stamped by their writers.
+	 */
+	private static final class Generation<T> {
+
+		private final ConcurrentSkipListSet<Entry<T>> entries;
+		private final AtomicInteger size;
+
+		private Generation(Comparator<Entry<T>> c) {
+			this.entries = new ConcurrentSkipListSet<>(c);
+			this.size = new AtomicInteger();
+		}
+	}
+
+	private final Comparator<Entry<T>> entryComparator;
+	private final AtomicLong nextSeq;
+	private final AtomicLong clock;
+	private volatile Generation<T> generation;
+
+	public ConcurrentSortedSaleIndex(Comparator<T> c) {
+		this.entryComparator = new Comparator<Entry<T>>() {
+
+			public int compare(Entry<T> a, Entry<T> b) {
+				int cmp = c.compare(a.element, b.element);
+				if (cmp == 0) {
+					return Long.compare(a.seq, b.seq);
+				} else {
+					return cmp;
+				}
+			}
+		};
+		this.nextSeq = new AtomicLong();
+		this.clock = new AtomicLong();
+		this.generation = new Generation<>(this.entryComparator);
+	}
+
+	/**
+	 * Add the given value {@code x} at its sorted position. Safe to call from any
+	 * thread, and never waits for other writers or readers.
+	 *
+	 * @param x
+	 */
+	public void add(T x) {
+		Generation<T> gen = this.generation;
+		Entry<T> entry = new Entry<>(x, this.nextSeq.incrementAndGet());
+		gen.entries.add(entry);
+		entry.stamp(this.clock);
+		gen.size.incrementAndGet();
+	}
+
+	/**
+	 * Add every value in {@code values}.
+	 *
+	 * @param values
+	 */
+	public void addAll(Iterable<T> values) {
+		for (T x : values) {
+			this.add(x);
+		}
+	}
+
+	/**
+	 * Returns a consistent, sorted view of every element whose insert has
+	 * completed. Later inserts are not visible through it.
+	 *
+	 * @return
+	 */
+	public View view() {
+		return new View(this.generation, this.clock.get());
+	}
+
+	/**
+	 * This function returns the number of elements whose insert has completed.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return this.generation.size.get();
+	}
+
+	/**
+	 * Return {@code true} if no insert has completed, {@code false} otherwise.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * Starts a new, empty generation. Views taken before the call keep reading
+	 * the old one. An insert that races with it lands in whichever generation
+	 * it started in, as if it had completed just before or just after the
+	 * clear; either way the counts stay exact.
+	 */
+	public void clear() {
+		this.generation = new Generation<>(this.entryComparator);
+	}
+
+	/**
+	 * Iterates over a view taken when this method is called.
+	 * @return
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return this.view().iterator();
+	}
+
+	/**
+	 * A read-only view of the index as of a given commit clock value.
+	 */
+	public class View implements Iterable<T> {
+
+		private final Generation<T> generation;
+		private final long watermark;
+		private int size = -1;
+
+		private View(Generation<T> generation, long watermark) {
+			this.generation = generation;
+			this.watermark = watermark;
+		}
+
+		/**
+		 * This function returns the number of elements visible in this view. The
+		 * first call counts them.
+		 *
+		 * @return
+		 */
+		public int size() {
+			if (this.size < 0) {
+				int n = 0;
+				for (Iterator<T> it = this.iterator(); it.hasNext(); it.next()) {
+					n++;
+				}
+				this.size = n;
+			}
+			return this.size;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			Iterator<Entry<T>> entries = this.generation.entries.iterator();
+			long watermark = this.watermark;
+			return new Iterator<T>() {
+
+				private Entry<T> next = advance();
+
+				private Entry<T> advance() {
+					while (entries.hasNext()) {
+						Entry<T> e = entries.next();
+						if (e.stamp(clock) <= watermark) {
+							return e;
+						}
+					}
+					return null;
+				}
+
+				@Override
+				public boolean hasNext() {
+					return this.next != null;
+				}
+
+				@Override
+				public T next() {
+					if (this.next == null) {
+						throw new NoSuchElementException();
+					}
+					T element = this.next.element;
+					this.next = advance();
+					return element;
+				}
+
+				@Override
+				public void remove() {
+					throw new UnsupportedOperationException();
+				}
+			};
+		}
+	}
+
+}
@@ -1,8 +1,9 @@
 package com.yrl;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -10,22 +11,99 @@ import org.apache.logging.log4j.Logger;
 /**
  * Authors: Amy Nguyen and Naomi Post 
  * Date: 2024-04-11
- * This class opens a connection to the database.
+ * This class hands out connections to the database. They are borrowed from a
+ * shared {@link ConnectionPool}, and closing one returns it to the pool.
  */
 public class ConnectionFactory {
 
 	private static final Logger LOGGER = LogManager.getLogger(ConnectionFactory.class);
-	
+
+	private static ConnectionPool pool;
+
+	/**
+	 * Returns the shared pool, creating it from {@link DatabaseInfo} on first
+	 * use.
+	 *
+	 * @return pool
+	 */
+	public static synchronized ConnectionPool getPool() {
+		if (pool == null) {
+			pool = new ConnectionPool(DatabaseInfo.URL, DatabaseInfo.USERNAME, DatabaseInfo.PASSWORD,
+					DatabaseInfo.POOL_MIN_SIZE, DatabaseInfo.POOL_MAX_SIZE, DatabaseInfo.POOL_MAX_WAIT_MILLIS,
+					DatabaseInfo.POOL_IDLE_TIMEOUT_MILLIS, DatabaseInfo.POOL_LEAK_THRESHOLD_MILLIS);
+		}
+		return pool;
+	}
+
+	/**
+	 * Closes the shared pool's connections. The next call to
+	 * {@link #getConnection()} starts a new pool.
+	 */
+	public static synchronized void shutdown() {
+		if (pool != null) {
+			LOGGER.info(pool);
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Borrows a connection from the shared pool. Fails rather than returning
+	 * null if none can be had, as when the pool stays exhausted.
+	 *
+	 * @return connection
+	 */
 	public static Connection getConnection() {
 		
 		Connection conn = null;
 		try {
-			conn = DriverManager.getConnection(DatabaseInfo.URL, DatabaseInfo.USERNAME, DatabaseInfo.PASSWORD);
+			conn = getPool().getConnection();
 		} catch (SQLException e) {
 			LOGGER.error("Unable to make connection",e);
-			e.printStackTrace();
+			throw new RuntimeException(e);
 		}
 		return conn;
 	}
+
+	/**
+	 * Closes whichever of the given resources are open, any of which may be
+	 * null. The connection is closed, and so returned to the pool, even if
+	 * closing the others fails. Meant for a {@code finally} block.
+	 *
+	 * @param rs, ps, conn
+	 */
+	public static void close(ResultSet rs, Statement ps, Connection conn) {
+		SQLException failure = null;
+		try {
+			if (rs != null && !rs.isClosed())
+				rs.close();
+		} catch (SQLException e) {
+			failure = e;
+		}
+		try {
+			if (ps != null && !ps.isClosed())
+				ps.close();
+		} catch (SQLException e) {
+			failure = suppress(failure, e);
+		}
+		try {
+			if (conn != null && !conn.isClosed())
+				conn.close();
+		} catch (SQLException e) {
+			failure = suppress(failure, e);
+		}
+		if (failure != null) {
+			LOGGER.error("Could not close resources", failure);
+			throw new RuntimeException(failure);
+		}
+	}
+
+	private static SQLException suppress(SQLException failure, SQLException e) {
+		if (failure == null) {
+			return e;
+		}
+		failure.addSuppressed(e);
+		return failure;
+	}
 	
 }
@@ -0,0 +1,531 @@
+package com.yrl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A fixed-bound pool of JDBC connections. {@link #getConnection()} hands out
+ * a wrapper around a pooled physical connection; closing the wrapper returns
+ * the connection to the pool instead of closing it, after closing any
+ * statements opened through it and rolling back an unfinished transaction.
+ *
+ * An idle connection is validated before it is handed out again. A background
+ * thread closes connections idle for longer than the idle timeout, down to the
+ * minimum size, and logs, once each, borrowed connections that have not been
+ * used for longer than the leak threshold, together with the stack trace of
+ * the borrower. A long session that keeps using its connection is not
+ * reported however long it is held. Borrow counts,
+ * wait times, timeouts, leaks and evictions are kept as metrics.
+ */
+public class ConnectionPool {
+
+	private static final Logger LOGGER = LogManager.getLogger(ConnectionPool.class);
+
+	private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+	private static final long HOUSEKEEPING_PERIOD_MILLIS = 5000;
+
+	/**
+	 * A physical connection and when it was last returned to the pool.
+	 */
+	private static final class Entry {
+
+		private final Connection connection;
+		private long idleSince;
+
+		private Entry(Connection connection) {
+			this.connection = connection;
+			this.idleSince = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * One borrowing of an entry: the wrapper handed out for it. Only the
+	 * statements still open are tracked, so a long session does not pile up
+	 * the ones it has closed.
+	 */
+	private final class Lease implements InvocationHandler {
+
+		private final Entry entry;
+		private final long borrowedAt;
+		private volatile long lastUsed;
+		private final Throwable borrowSite;
+		private final List<Statement> statements;
+		private boolean closed;
+		private boolean leakReported;
+
+		private Lease(Entry entry) {
+			this.entry = entry;
+			this.borrowedAt = System.currentTimeMillis();
+			this.lastUsed = this.borrowedAt;
+			this.borrowSite = (leakThresholdMillis > 0) ? new Exception("Connection borrowed here") : null;
+			this.statements = new ArrayList<>();
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			if (method.getDeclaringClass() == Object.class) {
+				switch (name) {
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				default:
+					return "Pooled " + this.entry.connection;
+				}
+			}
+			if (name.equals("close")) {
+				this.close();
+				return null;
+			}
+			if (name.equals("isClosed")) {
+				return this.closed || this.entry.connection.isClosed();
+			}
+			if (this.closed) {
+				throw new SQLException("Connection is closed");
+			}
+			this.lastUsed = System.currentTimeMillis();
+			try {
+				Object result = method.invoke(this.entry.connection, args);
+				if (result instanceof Statement) {
+					this.track((Statement) result);
+				}
+				return result;
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		/**
+		 * Adds a new statement, first dropping those already closed.
+		 */
+		private void track(Statement statement) throws SQLException {
+			Iterator<Statement> it = this.statements.iterator();
+			while (it.hasNext()) {
+				if (it.next().isClosed()) {
+					it.remove();
+				}
+			}
+			this.statements.add(statement);
+		}
+
+		private void close() {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			boolean reusable = this.reset();
+			giveBack(this, reusable);
+		}
+
+		/**
+		 * Closes the statements left open and rolls back an unfinished
+		 * transaction. Returns false if the connection is no longer usable.
+		 */
+		private boolean reset() {
+			Connection conn = this.entry.connection;
+			try {
+				for (Statement s : this.statements) {
+					if (!s.isClosed()) {
+						s.close();
+					}
+				}
+				if (conn.isClosed()) {
+					return false;
+				}
+				if (!conn.getAutoCommit()) {
+					conn.rollback();
+					conn.setAutoCommit(true);
+				}
+				return true;
+			} catch (SQLException e) {
+				LOGGER.warn("Discarding a connection that could not be reset", e);
+				return false;
+			}
+		}
+	}
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final int minSize;
+	private final int maxSize;
+	private final long maxWaitMillis;
+	private final long idleTimeoutMillis;
+	private final long leakThresholdMillis;
+
+	private final ArrayDeque<Entry> idle;
+	private final Map<Lease, Boolean> active;
+	private int total;
+	private boolean shutdown;
+	private ScheduledExecutorService housekeeper;
+
+	private long borrowCount;
+	private long waitCount;
+	private long totalWaitNanos;
+	private long maxWaitNanos;
+	private long timeoutCount;
+	private long createdCount;
+	private long evictedCount;
+	private long invalidCount;
+	private long leakCount;
+	private int peakActive;
+
+	/**
+	 * Creates a pool of connections to {@code url}. Connections are opened on
+	 * demand; the pool then keeps at least {@code minSize} of them open and
+	 * never more than {@code maxSize}. A borrower waits up to
+	 * {@code maxWaitMillis} for a free connection. A borrowed connection unused
+	 * for {@code leakThresholdMillis} is reported as a possible leak. A zero
+	 * idle timeout or leak threshold turns that check off.
+	 */
+	public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+			long maxWaitMillis, long idleTimeoutMillis, long leakThresholdMillis) {
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+		}
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.maxWaitMillis = maxWaitMillis;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.leakThresholdMillis = leakThresholdMillis;
+		this.idle = new ArrayDeque<>();
+		this.active = new IdentityHashMap<>();
+	}
+
+	/**
+	 * Borrows a connection, opening a new one if none is idle and the pool is
+	 * not full, or waiting for one to be returned otherwise. The caller must
+	 * close it to give it back.
+	 *
+	 * @return connection
+	 * @throws SQLException if no connection could be had within the maximum
+	 *                      wait, or opening one failed
+	 */
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+		long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis);
+		boolean waited = false;
+		while (true) {
+			Entry entry = null;
+			boolean create = false;
+			synchronized (this) {
+				if (this.shutdown) {
+					throw new SQLException("Connection pool is shut down");
+				}
+				this.startHousekeeper();
+				if (!this.idle.isEmpty()) {
+					entry = this.idle.pollFirst();
+				} else if (this.total < this.maxSize) {
+					this.total++;
+					create = true;
+				} else {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						this.timeoutCount++;
+						throw new SQLException("Timed out after " + this.maxWaitMillis
+								+ " ms waiting for a connection (" + this.total + " in use)");
+					}
+					waited = true;
+					try {
+						TimeUnit.NANOSECONDS.timedWait(this, remaining);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new SQLException("Interrupted waiting for a connection", e);
+					}
+					continue;
+				}
+			}
+
+			if (create) {
+				entry = this.open();
+			} else if (!this.isValid(entry)) {
+				this.discard(entry);
+				continue;
+			}
+			return this.lend(entry, start, waited);
+		}
+	}
+
+	/**
+	 * Opens a new physical connection for a slot already counted in
+	 * {@code total}, releasing the slot if that fails.
+	 */
+	private Entry open() throws SQLException {
+		try {
+			Entry entry = new Entry(DriverManager.getConnection(this.url, this.username, this.password));
+			synchronized (this) {
+				this.createdCount++;
+			}
+			return entry;
+		} catch (SQLException | RuntimeException e) {
+			synchronized (this) {
+				this.total--;
+				this.notifyAll();
+			}
+			throw e;
+		}
+	}
+
+	private boolean isValid(Entry entry) {
+		try {
+			return entry.connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Closes a connection that failed validation and frees its slot.
+	 */
+	private void discard(Entry entry) {
+		closeQuietly(entry.connection);
+		synchronized (this) {
+			this.total--;
+			this.invalidCount++;
+			this.notifyAll();
+		}
+	}
+
+	private Connection lend(Entry entry, long start, boolean waited) {
+		Lease lease = new Lease(entry);
+		long waitNanos = System.nanoTime() - start;
+		synchronized (this) {
+			this.active.put(lease, Boolean.TRUE);
+			this.borrowCount++;
+			if (waited) {
+				this.waitCount++;
+			}
+			this.totalWaitNanos += waitNanos;
+			this.maxWaitNanos = Math.max(this.maxWaitNanos, waitNanos);
+			this.peakActive = Math.max(this.peakActive, this.active.size());
+		}
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, lease);
+	}
+
+	/**
+	 * Takes back the connection of a closed lease: into the idle pool if it is
+	 * still usable, otherwise it is closed and its slot freed.
+	 */
+	private void giveBack(Lease lease, boolean reusable) {
+		boolean close;
+		synchronized (this) {
+			this.active.remove(lease);
+			close = !reusable || this.shutdown;
+			if (close) {
+				this.total--;
+			} else {
+				lease.entry.idleSince = System.currentTimeMillis();
+				this.idle.addFirst(lease.entry);
+			}
+			this.notifyAll();
+		}
+		if (close) {
+			closeQuietly(lease.entry.connection);
+		}
+	}
+
+	private void startHousekeeper() {
+		if (this.housekeeper != null) {
+			return;
+		}
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "ConnectionPool housekeeper");
+			t.setDaemon(true);
+			return t;
+		});
+		this.housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_PERIOD_MILLIS,
+				HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Evicts idle connections past the idle timeout, oldest first, while the
+	 * pool is above its minimum size; reports new leaks; and opens connections
+	 * until the pool is back at its minimum size.
+	 */
+	void housekeep() {
+		long now = System.currentTimeMillis();
+		List<Entry> evicted = new ArrayList<>();
+		List<Lease> leaked = new ArrayList<>();
+		int missing;
+		synchronized (this) {
+			if (this.idleTimeoutMillis > 0) {
+				Iterator<Entry> oldest = this.idle.descendingIterator();
+				while (oldest.hasNext() && this.total > this.minSize) {
+					Entry e = oldest.next();
+					if (now - e.idleSince < this.idleTimeoutMillis) {
+						break;
+					}
+					oldest.remove();
+					this.total--;
+					this.evictedCount++;
+					evicted.add(e);
+				}
+			}
+			if (this.leakThresholdMillis > 0) {
+				for (Lease lease : this.active.keySet()) {
+					if (!lease.leakReported && now - lease.lastUsed > this.leakThresholdMillis) {
+						lease.leakReported = true;
+						this.leakCount++;
+						leaked.add(lease);
+					}
+				}
+			}
+			missing = this.shutdown ? 0 : this.minSize - this.total;
+			this.total += Math.max(missing, 0);
+		}
+
+		for (Entry e : evicted) {
+			closeQuietly(e.connection);
+		}
+		for (Lease lease : leaked) {
+			LOGGER.warn("Possible connection leak: borrowed " + (now - lease.borrowedAt) + " ms ago, unused for "
+					+ (now - lease.lastUsed) + " ms", lease.borrowSite);
+		}
+		for (int i = 0; i < missing; i++) {
+			try {
+				Entry e = this.open();
+				synchronized (this) {
+					this.idle.addLast(e);
+					this.notifyAll();
+				}
+			} catch (SQLException e) {
+				LOGGER.warn("Could not open a connection to refill the pool", e);
+				synchronized (this) {
+					this.total -= missing - i - 1;
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Closes the idle connections and stops the housekeeper. Borrowed
+	 * connections are closed when they are returned.
+	 */
+	public void shutdown() {
+		List<Entry> closing;
+		synchronized (this) {
+			this.shutdown = true;
+			closing = new ArrayList<>(this.idle);
+			this.total -= this.idle.size();
+			this.idle.clear();
+			if (this.housekeeper != null) {
+				this.housekeeper.shutdownNow();
+			}
+			this.notifyAll();
+		}
+		for (Entry e : closing) {
+			closeQuietly(e.connection);
+		}
+	}
+
+	private static void closeQuietly(Connection conn) {
+		try {
+			conn.close();
+		} catch (SQLException e) {
+			LOGGER.warn("Could not close a pooled connection", e);
+		}
+	}
+
+	public synchronized int getActiveCount() {
+		return this.active.size();
+	}
+
+	public synchronized int getIdleCount() {
+		return this.idle.size();
+	}
+
+	public synchronized int getTotalCount() {
+		return this.total;
+	}
+
+	public synchronized int getPeakActiveCount() {
+		return this.peakActive;
+	}
+
+	public synchronized long getBorrowCount() {
+		return this.borrowCount;
+	}
+
+	/**
+	 * Returns how many borrows had to wait for a connection to be returned.
+	 *
+	 * @return
+	 */
+	public synchronized long getWaitCount() {
+		return this.waitCount;
+	}
+
+	/**
+	 * Returns the mean time a borrow took, in milliseconds, including opening or
+	 * validating the connection.
+	 *
+	 * @return
+	 */
+	public synchronized double getMeanWaitMillis() {
+		return (this.borrowCount == 0) ? 0 : this.totalWaitNanos / 1e6 / this.borrowCount;
+	}
+
+	public synchronized double getMaxWaitMillis() {
+		return this.maxWaitNanos / 1e6;
+	}
+
+	public synchronized long getTimeoutCount() {
+		return this.timeoutCount;
+	}
+
+	public synchronized long getCreatedCount() {
+		return this.createdCount;
+	}
+
+	public synchronized long getEvictedCount() {
+		return this.evictedCount;
+	}
+
+	/**
+	 * Returns how many idle connections failed validation and were discarded.
+	 *
+	 * @return
+	 */
+	public synchronized long getInvalidCount() {
+		return this.invalidCount;
+	}
+
+	public synchronized long getLeakCount() {
+		return this.leakCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(
+				"ConnectionPool[active=%d, idle=%d, total=%d/%d, peak=%d, borrows=%d, waits=%d, "
+						+ "meanWait=%.2fms, maxWait=%.2fms, timeouts=%d, created=%d, evicted=%d, invalid=%d, leaks=%d]",
+				this.active.size(), this.idle.size(), this.total, this.maxSize, this.peakActive, this.borrowCount,
+				this.waitCount, this.getMeanWaitMillis(), this.getMaxWaitMillis(), this.timeoutCount,
+				this.createdCount, this.evictedCount, this.invalidCount, this.leakCount);
+	}
+
+}
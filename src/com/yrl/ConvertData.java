@@ -3,11 +3,23 @@ package com.yrl;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializer;
 import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
 
 /**
  * Authors: Amy Nguyen and Naomi Post
@@ -16,6 +28,108 @@ import com.thoughtworks.xstream.XStream;
  */
 public class ConvertData {
 
+	/**
+	 * Writes an item with the fields it was exported with before its code, name
+	 * and price moved into a shared {@link ItemDefinition}.
+	 */
+	private static final class ItemConverter implements Converter {
+
+		@Override
+		public boolean canConvert(@SuppressWarnings("rawtypes") Class type) {
+			return type != null && Item.class.isAssignableFrom(type);
+		}
+
+		@Override
+		public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+			for (Map<String, Object> fields : exportFields((Item) source)) {
+				for (Map.Entry<String, Object> field : fields.entrySet()) {
+					writer.startNode(field.getKey());
+					context.convertAnother(field.getValue());
+					writer.endNode();
+				}
+			}
+		}
+
+		@Override
+		public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+			throw new UnsupportedOperationException("Items are only exported");
+		}
+	}
+
+	private static XStream newXStream() {
+		XStream xstream = new XStream();
+		xstream.registerConverter(new ItemConverter());
+		return xstream;
+	}
+
+	/**
+	 * Gson lists a subclass's fields before its superclass's, so the groups are
+	 * added in reverse.
+	 */
+	private static Gson newGson() {
+		JsonSerializer<Item> items = (item, type, context) -> {
+			JsonObject json = new JsonObject();
+			List<Map<String, Object>> groups = exportFields(item);
+			Collections.reverse(groups);
+			for (Map<String, Object> fields : groups) {
+				for (Map.Entry<String, Object> field : fields.entrySet()) {
+					json.add(field.getKey(), context.serialize(field.getValue()));
+				}
+			}
+			return json;
+		};
+		return new GsonBuilder().setPrettyPrinting().registerTypeHierarchyAdapter(Item.class, items).create();
+	}
+
+	/**
+	 * Returns the exported fields of {@code item} grouped by the class that used
+	 * to declare them, superclass first. Null fields are left out, as both
+	 * libraries leave them out.
+	 */
+	private static List<Map<String, Object>> exportFields(Item item) {
+		List<Map<String, Object>> groups = new ArrayList<>();
+		double price = Money.toDollars(item.getDefinition().getPriceCents());
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("code", item.getCode());
+		fields.put("name", item.getName());
+		groups.add(fields);
+		fields = new LinkedHashMap<>();
+		if (item instanceof Product) {
+			fields.put("basePrice", price);
+			groups.add(fields);
+			fields = new LinkedHashMap<>();
+		}
+		if (item instanceof Purchase) {
+			fields.put("TAX_RATE", Purchase.TAX_RATE_PER_MILLE / 1000.0);
+		} else if (item instanceof Lease) {
+			Lease lease = (Lease) item;
+			fields.put("markup", Lease.MARKUP_PERCENT / 100.0);
+			fields.put("startDate", LocalDate.parse(lease.getStartDate()));
+			fields.put("endDate", LocalDate.parse(lease.getEndDate()));
+		} else if (item instanceof Data) {
+			fields.put("numGBs", ((Data) item).getNumGBs());
+			fields.put("TAX_RATE", Data.TAX_RATE_PER_MILLE / 1000.0);
+			fields.put("pricePerGB", price);
+		} else if (item instanceof Voice) {
+			Voice voice = (Voice) item;
+			fields.put("numDays", voice.getNumDays());
+			fields.put("phoneNum", voice.getPhoneNum());
+			fields.put("TAX_RATE", Voice.TAX_RATE_PER_MILLE / 1000.0);
+			fields.put("pricePerPeriod", price);
+		} else if (item instanceof Service) {
+			Service service = (Service) item;
+			fields.put("numHours", service.getNumHours());
+			fields.put("servicer", service.getServicer());
+			fields.put("TAX_RATE", Service.TAX_RATE_PER_MILLE / 1000.0);
+			fields.put("hourlyPrice", price);
+		}
+		fields.values().removeIf(value -> value == null);
+		if (!fields.isEmpty()) {
+			groups.add(fields);
+		}
+		return groups;
+	}
+
 	/**
 	 *Convert Persons from CSV to XML, then write in an output file.
 	 *
@@ -25,7 +139,7 @@ public class ConvertData {
 		if(personMap == null || personMap.size() == 0) {
 			return;
 		}
-		XStream xstream = new XStream();
+		XStream xstream = newXStream();
 		File personXML = new File(outputFile);
 		PrintWriter pwxml;
 		try {
@@ -51,7 +165,7 @@ public class ConvertData {
 		if(personMap == null || personMap.size() == 0) {
 			return;
 		}
-		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		Gson gson = newGson();
 		File personJSON = new File(outputFile);
 		PrintWriter pwjson;
 		try {
@@ -80,7 +194,7 @@ public class ConvertData {
 		if(itemMap == null || itemMap.size() == 0) {
 			return;
 		}
-		XStream xstream = new XStream();
+		XStream xstream = newXStream();
 		File itemXML = new File(outputFile);
 		PrintWriter pwxml;
 		try {
@@ -106,7 +220,7 @@ public class ConvertData {
 		if(itemMap == null || itemMap.size() == 0) {
 			return;
 		}
-		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		Gson gson = newGson();
 		File itemJSON = new File(outputFile);
 		PrintWriter pwjson;
 		try {
@@ -134,7 +248,7 @@ public class ConvertData {
 		if(storeMap == null || storeMap.size() == 0) {
 			return;
 		}
-		XStream xstream = new XStream();
+		XStream xstream = newXStream();
 		File storeXML = new File(outputFile);
 		PrintWriter pwxml;
 		try {
@@ -160,7 +274,7 @@ public class ConvertData {
 		if(storeMap == null || storeMap.size() == 0) {
 			return;
 		}	
-		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		Gson gson = newGson();
 		File storeJSON = new File(outputFile);
 		PrintWriter pwjson;
 		try {
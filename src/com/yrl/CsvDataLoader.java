@@ -1,16 +1,11 @@
 package com.yrl;
 
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
 
 /**
  * Authors: Amy Nguyen and Naomi Post 
@@ -32,37 +27,20 @@ public class CsvDataLoader {
 		}
 
 		Map<String, Person> personMap = new HashMap<>();
-		File f = new File(filePath);
-		Scanner s;
-		try {
-			s = new Scanner(f);
-			s.nextLine();
-			while (s.hasNextLine()) {
-				String line = s.nextLine();
-				String tokens[] = line.split(",");
-				String uuid = tokens[0];
-				String firstName = tokens[1];
-				String lastName = tokens[2];
-				String street = tokens[3];
-				String city = tokens[4];
-				String state = tokens[5];
-				String zip = tokens[6];
-				Address address = new Address(street, city, state, zip);
-				Person person = new Person(uuid, lastName, firstName, address);
-				String email;
-				if (tokens.length > 7) {
-					for (int i = 7; i < tokens.length; i++) {
-						email = tokens[i];
-						person.addEmail(email);
-					}
-				}
-				personMap.put(uuid, person);
+		StringPool pool = new StringPool();
+		try (CsvReader csv = CsvReader.open(filePath)) {
+			if (!csv.nextRecord()) {
+				System.out.print("No data in file");
+				return personMap;
+			}
+			while (csv.nextRecord()) {
+				Person person = parsePerson(csv, pool);
+				personMap.put(person.getUuid(), person);
 			}
-			s.close();
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
-		} catch (NoSuchElementException nsee) {
-			System.out.print("No data in file");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
 		return personMap;
 	}
@@ -80,86 +58,69 @@ public class CsvDataLoader {
 		}
 
 		Map<String, Item> itemMap = new HashMap<>();
-		File f = new File(filePath);
-		Scanner s;
-		try {
-			s = new Scanner(f);
-			s.nextLine();
-			while (s.hasNextLine()) {
-				String line = s.nextLine();
-				String tokens[] = line.split(",");
-				String code = tokens[0];
-				String itemType = tokens[1];
-				String name = tokens[2];
-				double basePrice = Double.parseDouble(tokens[3]);
-				if (itemType.equals("V")) {
-					Voice item = new Voice(code, name, basePrice);
-					itemMap.put(code, item);
-				} else if (itemType.equals("D")) {
-					Data item = new Data(code, name, basePrice);
-					itemMap.put(code, item);
-				} else if (itemType.equals("S")) {
-					Service item = new Service(code, name, basePrice);
-					itemMap.put(code, item);
-				} else if (itemType.equals("P")) {
-					Product item = new Product(code, name, basePrice);
-					itemMap.put(code, item);
+		try (CsvReader csv = CsvReader.open(filePath)) {
+			if (!csv.nextRecord()) {
+				System.out.print("No data in file");
+				return itemMap;
+			}
+			while (csv.nextRecord()) {
+				Item item = parseItem(csv);
+				if (item != null) {
+					itemMap.put(item.getCode(), item);
 				}
 			}
-			s.close();
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
-		} catch (NoSuchElementException nsee) {
-			System.out.print("No data in file");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		}
 		return itemMap;
 	}
 
 	/**
-	 * Loads up a collection of Sales from the given file.
+	 * Loads up a collection of Sales from the given file. Duplicate sale codes
+	 * are printed.
 	 *
 	 * @param filePath, storeMap, personMap
 	 * @return saleMap
 	 * 
 	 */
 	public static Map<String, Sale> loadSaleData(String filePath, Map<String, Store> storeMap, Map<String, Person> personMap) {
+		LoadDiagnostics diagnostics = new LoadDiagnostics();
+		Map<String, Sale> saleMap = loadSaleData(filePath, storeMap, personMap, diagnostics);
+		diagnostics.printRejects();
+		return saleMap;
+	}
+
+	/**
+	 * Loads up a collection of Sales from the given file. A sale whose code was
+	 * already loaded is rejected into {@code diagnostics}; the first one wins.
+	 *
+	 * @param filePath, storeMap, personMap, diagnostics
+	 * @return saleMap
+	 */
+	public static Map<String, Sale> loadSaleData(String filePath, Map<String, Store> storeMap,
+			Map<String, Person> personMap, LoadDiagnostics diagnostics) {
 		if (filePath == null) {
 			return null;
 		}
 
 		Map<String, Sale> saleMap = new HashMap<>();
-		File f = new File(filePath);
-		Scanner s;
-		try {
-			s = new Scanner(f);
-			s.nextLine();
-			while (s.hasNextLine()) {
-				String line = s.nextLine();
-				String tokens[] = line.split(",");
-				if (tokens.length == 5) {
-					String saleCode = tokens[0];
-					String storeCode = tokens[1];
-					String customerUuid = tokens[2];
-					String salesPersonUuid = tokens[3];
-					LocalDate date = LocalDate.parse(tokens[4]);
-
-					if (personMap.containsKey(customerUuid) && personMap.containsKey(salesPersonUuid)) {
-						Sale sale = new Sale(saleCode, storeMap.get(storeCode), personMap.get(customerUuid),
-								personMap.get(salesPersonUuid), date);
-						if (!saleMap.containsValue(sale)) {
-							saleMap.put(saleCode, sale);
-						}
-					} else {
-						s.close();
-						throw new RuntimeException("Not found");
-					}
+		try (CsvReader csv = CsvReader.open(filePath)) {
+			if (!csv.nextRecord()) {
+				System.out.print("No data in file");
+				return saleMap;
+			}
+			while (csv.nextRecord()) {
+				Sale sale = parseSale(csv, storeMap, personMap);
+				if (sale != null) {
+					addSale(saleMap, sale, filePath, csv.getRecordNumber(), diagnostics);
 				}
 			}
-			s.close();
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
-		} catch (NoSuchElementException nsee) {
-			System.out.print("No data in file");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		} catch (IndexOutOfBoundsException ioob) {
 			System.out.print("Out of bounds in SalesData\n");
 		}
@@ -180,66 +141,19 @@ public class CsvDataLoader {
 		}
 
 		Map<String, Item> salesItemMap = new HashMap<>();
-		File f = new File(filePath);
-		Scanner s;
-		try {
-			s = new Scanner(f);
-			s.nextLine();
-			while (s.hasNextLine()) {
-				String line = s.nextLine();
-				String rawTokens[] = line.split(",");
-
-				List<String> nonEmptyTokens = new ArrayList<String>();
-				for (String str : rawTokens) {
-					if (!str.isEmpty()) {
-						nonEmptyTokens.add(str);
-					}
-				}
-				String[] tokens = nonEmptyTokens.toArray(new String[0]);
-
-				String saleCode = tokens[0];
+		SaleItemResolver resolver = new SaleItemResolver(itemMap);
+		try (CsvReader csv = CsvReader.open(filePath)) {
+			if (!csv.nextRecord()) {
+				System.out.print("No data in file");
+				return salesItemMap;
+			}
+			while (csv.nextRecord()) {
+				int[] tokens = nonEmptyFields(csv);
+				String saleCode = csv.getString(tokens[0]);
 				if (tokens.length > 1) {
-					String itemCode = tokens[1];
-					Item a = null;
-
-					for (Item item : itemMap.values()) {
-						if (itemCode.equals(item.getCode())) {
-							if (item instanceof Product && tokens.length == 2) {
-								a = new Purchase(item.getCode(), item.getName(), ((Product) item).getBasePrice());
-								salesItemMap.put(saleCode, a);
-
-							} else if (item instanceof Product && tokens.length == 4) {
-								a = new Lease(item.getCode(), item.getName(), ((Product) item).getBasePrice(),
-										LocalDate.parse(tokens[2]), LocalDate.parse(tokens[3]));
-								salesItemMap.put(saleCode, a);
-
-							} else if (item instanceof Service) {
-								String servicerUuid = tokens[3];
-								if (personMap.containsKey(servicerUuid)) {
-									a = new Service(item.getCode(), item.getName(), ((Service) item).getHourlyPrice(),
-											Double.parseDouble(tokens[2]), personMap.get(servicerUuid));
-									salesItemMap.put(saleCode, a);
-
-								} else {
-									s.close();
-									throw new RuntimeException("Not found");
-								}
-
-							} else if (item instanceof Data) {
-								double numGBs = Double.parseDouble(tokens[2]);
-								a = new Data(item.getCode(), item.getName(), ((Data) item).getPricePerGB(), numGBs);
-								salesItemMap.put(saleCode, a);
-
-							} else if (item instanceof Voice) {
-								String phoneNum = tokens[2];
-								int numDays = Integer.parseInt(tokens[3]);
-								a = new Voice(item.getCode(), item.getName(), ((Voice) item).getPricePerPeriod(),
-										phoneNum, numDays);
-								salesItemMap.put(saleCode, a);
-
-							}
-							break;
-						}
+					Item a = resolver.resolve(csv, tokens, personMap);
+					if (a != null) {
+						salesItemMap.put(saleCode, a);
 					}
 
 					if (saleMap.containsKey(saleCode)) {
@@ -249,16 +163,71 @@ public class CsvDataLoader {
 					}
 				}
 			}
-			s.close();
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
-		} catch (NoSuchElementException nsee) {
-			System.out.print("No data in file");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		} catch (IndexOutOfBoundsException ioob) {
 		}
 		return salesItemMap;
 	}
 
+	/**
+	 * Loads every line of the given sale items file into a {@link SaleLineStore}.
+	 * Each line is resolved, copied into the store's columns and dropped, so
+	 * the sales in {@code saleMap} are left without items and no line object
+	 * outlives its record.
+	 *
+	 * @param filePath, itemMap, saleMap, personMap
+	 * @return store
+	 */
+	public static SaleLineStore loadSaleLines(String filePath, Map<String, Item> itemMap, Map<String, Sale> saleMap,
+			Map<String, Person> personMap) {
+		if (filePath == null) {
+			return null;
+		}
+
+		SaleLineStore store = new SaleLineStore();
+		SaleItemResolver resolver = new SaleItemResolver(itemMap);
+		try (CsvReader csv = CsvReader.open(filePath)) {
+			if (!csv.nextRecord()) {
+				System.out.print("No data in file");
+				return store;
+			}
+			while (csv.nextRecord()) {
+				int[] tokens = nonEmptyFields(csv);
+				if (tokens.length > 1) {
+					Sale sale = saleMap.get(csv.getString(tokens[0]));
+					Item item = resolver.resolve(csv, tokens, personMap);
+					if (sale == null) {
+						System.out.println("Sale not found");
+					} else if (item != null) {
+						store.add(sale, item);
+					}
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} catch (IndexOutOfBoundsException ioob) {
+		}
+		return store;
+	}
+
+	/**
+	 * Loads only the line counts and totals of the sales in {@code saleMap} from
+	 * the given sale items file. A sale's lines are read again, from just its
+	 * own records, when its items are asked for.
+	 *
+	 * @param filePath, itemMap, saleMap, personMap
+	 */
+	public static void loadSaleTotals(String filePath, Map<String, Item> itemMap, Map<String, Sale> saleMap,
+			Map<String, Person> personMap) {
+		if (filePath == null) {
+			return;
+		}
+		new CsvSaleItemSource(filePath, itemMap, saleMap, personMap).loadTotals();
+	}
+
 	/**
 	 * Loads up a collection of Stores from the given file.
 	 *
@@ -272,43 +241,182 @@ public class CsvDataLoader {
 		}
 
 		Map<String, Store> storeMap = new HashMap<>();
-		File f = new File(filePath);
-		Scanner s;
-		try {
-			s = new Scanner(f);
-			s.nextLine();
-			while (s.hasNextLine()) {
-				String line = s.nextLine();
-				String tokens[] = line.split(",");
-				if (tokens.length == 6) {
-					String storeCode = tokens[0];
-					String managerUuid = tokens[1];
-					String street = tokens[2];
-					String city = tokens[3];
-					String state = tokens[4];
-					String zip = tokens[5];
-					Address address = new Address(street, city, state, zip);
-
-					if (personMap.containsKey(managerUuid)) {
-						Store store = new Store(storeCode, personMap.get(managerUuid), address);
-						storeMap.put(storeCode, store);
-
-					} else {
-						Person manager = new Person(managerUuid, null, null, null);
-						Store store = new Store(storeCode, manager, address);
-						storeMap.put(storeCode, store);
-					}
+		StringPool pool = new StringPool();
+		try (CsvReader csv = CsvReader.open(filePath)) {
+			if (!csv.nextRecord()) {
+				System.out.print("No data in file");
+				return storeMap;
+			}
+			while (csv.nextRecord()) {
+				Store store = parseStore(csv, personMap, pool);
+				if (store != null) {
+					storeMap.put(store.getStoreCode(), store);
 				}
 			}
-			s.close();
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
-		} catch (NoSuchElementException nsee) {
-			System.out.print("No data in file");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
 		} catch (IndexOutOfBoundsException ioob) {
 			System.out.print("Out of bounds in StoreData\n");
 		}
 		return storeMap;
 	}
 
+	/**
+	 * Builds a Person from the current record of a persons file. Names, cities,
+	 * states and zip codes are taken from {@code pool}, so a value repeated
+	 * across the file is held once.
+	 *
+	 * @param csv, pool
+	 * @return person
+	 */
+	static Person parsePerson(CsvRecord csv, StringPool pool) {
+		int numFields = fieldCount(csv);
+		String uuid = csv.getString(0);
+		String firstName = csv.getString(1, pool);
+		String lastName = csv.getString(2, pool);
+		Address address = parseAddress(csv, 3, pool);
+		Person person = new Person(uuid, lastName, firstName, address);
+		for (int i = 7; i < numFields; i++) {
+			person.addEmail(csv.getString(i));
+		}
+		return person;
+	}
+
+	/**
+	 * Builds an Item from the current record of an items file. Returns null if
+	 * the item type is unknown.
+	 *
+	 * @param csv
+	 * @return item
+	 */
+	static Item parseItem(CsvRecord csv) {
+		String code = csv.getString(0);
+		String name = csv.getString(2);
+		double basePrice = csv.getDouble(3);
+		if (csv.fieldEquals(1, "V")) {
+			return new Voice(code, name, basePrice);
+		} else if (csv.fieldEquals(1, "D")) {
+			return new Data(code, name, basePrice);
+		} else if (csv.fieldEquals(1, "S")) {
+			return new Service(code, name, basePrice);
+		} else if (csv.fieldEquals(1, "P")) {
+			return new Product(code, name, basePrice);
+		}
+		return null;
+	}
+
+	/**
+	 * Builds a Store from the current record of a stores file. A manager who is
+	 * not in {@code personMap} is represented by a Person with only a UUID.
+	 * Returns null if the record does not have exactly six fields.
+	 *
+	 * @param csv, personMap, pool
+	 * @return store
+	 */
+	static Store parseStore(CsvRecord csv, Map<String, Person> personMap, StringPool pool) {
+		if (fieldCount(csv) != 6) {
+			return null;
+		}
+		String storeCode = csv.getString(0);
+		String managerUuid = csv.getString(1);
+		Address address = parseAddress(csv, 2, pool);
+
+		if (personMap.containsKey(managerUuid)) {
+			return new Store(storeCode, personMap.get(managerUuid), address);
+		} else {
+			Person manager = new Person(managerUuid, null, null, null);
+			return new Store(storeCode, manager, address);
+		}
+	}
+
+	/**
+	 * Builds an Address from the street, city, state and zip fields starting at
+	 * {@code first}. All but the street are taken from {@code pool}.
+	 *
+	 * @param csv, first, pool
+	 * @return address
+	 */
+	static Address parseAddress(CsvRecord csv, int first, StringPool pool) {
+		String street = csv.getString(first);
+		String city = csv.getString(first + 1, pool);
+		String state = csv.getString(first + 2, pool);
+		String zip = csv.getString(first + 3, pool);
+		return new Address(street, city, state, zip);
+	}
+
+	/**
+	 * Builds a Sale from the current record of a sales file. Returns null if the
+	 * record does not have exactly five fields.
+	 *
+	 * @param csv, storeMap, personMap
+	 * @return sale
+	 */
+	static Sale parseSale(CsvRecord csv, Map<String, Store> storeMap, Map<String, Person> personMap) {
+		if (fieldCount(csv) != 5) {
+			return null;
+		}
+		String saleCode = csv.getString(0);
+		String storeCode = csv.getString(1);
+		String customerUuid = csv.getString(2);
+		String salesPersonUuid = csv.getString(3);
+		LocalDate date = csv.getDate(4);
+
+		if (personMap.containsKey(customerUuid) && personMap.containsKey(salesPersonUuid)) {
+			return new Sale(saleCode, storeMap.get(storeCode), personMap.get(customerUuid),
+					personMap.get(salesPersonUuid), date);
+		} else {
+			throw new RuntimeException("Not found");
+		}
+	}
+
+	/**
+	 * Puts {@code sale} into {@code saleMap} and registers it with its store,
+	 * unless its sale code is already taken, in which case it is rejected into
+	 * {@code diagnostics}.
+	 *
+	 * @param saleMap, sale, source, recordNumber, diagnostics
+	 */
+	static void addSale(Map<String, Sale> saleMap, Sale sale, String source, long recordNumber,
+			LoadDiagnostics diagnostics) {
+		if (saleMap.putIfAbsent(sale.getSaleCode(), sale) != null) {
+			diagnostics.reject(source, recordNumber, "Duplicate sale", sale.getSaleCode());
+		} else if (sale.getStore() != null) {
+			sale.getStore().addSale(sale);
+		}
+	}
+
+	/**
+	 * Returns the positions of the non-empty fields in the current record.
+	 *
+	 * @param csv
+	 * @return tokens
+	 */
+	static int[] nonEmptyFields(CsvRecord csv) {
+		int[] tokens = new int[csv.getFieldCount()];
+		int numTokens = 0;
+		for (int i = 0; i < csv.getFieldCount(); i++) {
+			if (!csv.isEmpty(i)) {
+				tokens[numTokens++] = i;
+			}
+		}
+		return Arrays.copyOf(tokens, numTokens);
+	}
+
+	/**
+	 * Returns the number of fields in the current record, not counting trailing
+	 * empty fields.
+	 *
+	 * @param csv
+	 * @return numFields
+	 */
+	static int fieldCount(CsvRecord csv) {
+		int numFields = csv.getFieldCount();
+		while (numFields > 0 && csv.isEmpty(numFields - 1)) {
+			numFields--;
+		}
+		return numFields;
+	}
+
 }
\ No newline at end of file
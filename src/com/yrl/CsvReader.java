@@ -0,0 +1,211 @@
+package com.yrl;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A streaming CSV tokenizer. The input is read through one large
+ * {@code char} buffer and each record's fields are unescaped into a single
+ * reusable field buffer, so reading a record allocates nothing. Fields are
+ * exposed as reusable {@link CharSequence} slices, or parsed straight into
+ * numbers and dates; a {@code String} is only built when asked for.
+ *
+ * Quoting follows RFC 4180: a quoted field may contain commas, line breaks and
+ * doubled quotes. Records may end in LF, CR LF or CR. Blank lines are skipped.
+ *
+ * The byte range each record came from, as UTF-8, is tracked so a caller can
+ * read a record again straight from the file.
+ */
+public class CsvReader extends CsvRecord implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final Reader reader;
+	private final char[] buffer;
+	private int position;
+	private int limit;
+	private int markPosition;
+	private long markOffset;
+	private long recordOffset;
+	private long recordEndOffset;
+
+	public CsvReader(Reader reader) {
+		this(reader, BUFFER_SIZE);
+	}
+
+	/**
+	 * Reads through a buffer of {@code bufferSize} chars, for input known to be
+	 * small.
+	 *
+	 * @param reader, bufferSize
+	 */
+	public CsvReader(Reader reader, int bufferSize) {
+		super(new char[256], new int[16], new int[16], 0, 0);
+		this.reader = reader;
+		this.buffer = new char[Math.max(bufferSize, 1)];
+		this.position = 0;
+		this.limit = 0;
+	}
+
+	/**
+	 * Opens the given file {@code filePath} as UTF-8.
+	 *
+	 * @param filePath
+	 * @return reader
+	 * @throws FileNotFoundException
+	 */
+	public static CsvReader open(String filePath) throws FileNotFoundException {
+		return new CsvReader(new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Advances to the next record. Returns {@code false} at end of input.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public boolean nextRecord() throws IOException {
+		int c;
+		do {
+			c = this.read();
+			if (c == '\r' && this.peek() == '\n') {
+				this.position++;
+			}
+		} while (c == '\n' || c == '\r');
+		if (c < 0) {
+			this.fieldCount = 0;
+			return false;
+		}
+		this.recordOffset = this.offsetAt(this.position - 1);
+
+		this.fieldCount = 0;
+		int length = 0;
+		int start = 0;
+		boolean quoted = false;
+		while (true) {
+			if (quoted) {
+				if (c < 0) {
+					throw new IOException("Unterminated quoted field in record " + (this.recordNumber + 1));
+				}
+				if (c == '"') {
+					if (this.peek() == '"') {
+						this.position++;
+						length = this.append(length, '"');
+					} else {
+						quoted = false;
+					}
+				} else {
+					length = this.append(length, (char) c);
+				}
+			} else if (c == ',' || c == '\n' || c == '\r' || c < 0) {
+				this.endField(start, length);
+				start = length;
+				if (c != ',') {
+					if (c == '\r' && this.peek() == '\n') {
+						this.position++;
+					}
+					break;
+				}
+			} else if (c == '"' && length == start) {
+				quoted = true;
+			} else {
+				length = this.append(length, (char) c);
+			}
+			c = this.read();
+		}
+		this.recordEndOffset = this.offsetAt(this.position);
+		this.recordNumber++;
+		return true;
+	}
+
+	/**
+	 * Returns the UTF-8 byte offset at which the current record starts.
+	 *
+	 * @return offset
+	 */
+	public long getRecordOffset() {
+		return this.recordOffset;
+	}
+
+	/**
+	 * Returns the UTF-8 byte offset just past the current record and its line
+	 * break.
+	 *
+	 * @return offset
+	 */
+	public long getRecordEndOffset() {
+		return this.recordEndOffset;
+	}
+
+	/**
+	 * Returns the byte offset of buffer position {@code to}, counting the UTF-8
+	 * length of the chars since the last position asked for. A surrogate
+	 * counts 2, so a pair counts the 4 bytes it is encoded in.
+	 */
+	private long offsetAt(int to) {
+		long offset = this.markOffset;
+		for (int i = this.markPosition; i < to; i++) {
+			char ch = this.buffer[i];
+			offset += (ch < 0x80) ? 1 : (ch < 0x800 || Character.isSurrogate(ch)) ? 2 : 3;
+		}
+		this.markPosition = to;
+		this.markOffset = offset;
+		return offset;
+	}
+
+	private int read() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			return -1;
+		}
+		return this.buffer[this.position++];
+	}
+
+	private int peek() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			return -1;
+		}
+		return this.buffer[this.position];
+	}
+
+	private boolean fill() throws IOException {
+		this.offsetAt(this.limit);
+		int n = this.reader.read(this.buffer, 0, this.buffer.length);
+		if (n <= 0) {
+			return false;
+		}
+		this.markPosition = 0;
+		this.position = 0;
+		this.limit = n;
+		return true;
+	}
+
+	private int append(int length, char c) {
+		if (length == this.fields.length) {
+			this.fields = Arrays.copyOf(this.fields, length * 2);
+		}
+		this.fields[length] = c;
+		return length + 1;
+	}
+
+	private void endField(int start, int end) {
+		if (this.fieldCount == this.fieldStarts.length) {
+			this.fieldStarts = Arrays.copyOf(this.fieldStarts, this.fieldCount * 2);
+			this.fieldEnds = Arrays.copyOf(this.fieldEnds, this.fieldCount * 2);
+		}
+		this.fieldStarts[this.fieldCount] = start;
+		this.fieldEnds[this.fieldCount] = end;
+		this.fieldCount++;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+
+}
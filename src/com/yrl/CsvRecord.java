@@ -0,0 +1,316 @@
+package com.yrl;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * One CSV record: the unescaped text of its fields in a single {@code char}
+ * buffer, with the start and end of each field. {@link CsvReader} is a record
+ * that is refilled in place as it advances; {@link #copy()} detaches the
+ * current record so it can be kept or handed to another thread.
+ */
+public class CsvRecord {
+
+	private static final int MAX_FAST_DIGITS = 15;
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	protected char[] fields;
+	protected int[] fieldStarts;
+	protected int[] fieldEnds;
+	protected int fieldCount;
+	protected long recordNumber;
+	private final Slice slice;
+
+	protected CsvRecord(char[] fields, int[] fieldStarts, int[] fieldEnds, int fieldCount, long recordNumber) {
+		this.fields = fields;
+		this.fieldStarts = fieldStarts;
+		this.fieldEnds = fieldEnds;
+		this.fieldCount = fieldCount;
+		this.recordNumber = recordNumber;
+		this.slice = new Slice();
+	}
+
+	/**
+	 * Returns a copy of this record that does not change when the reader moves
+	 * on.
+	 *
+	 * @return record
+	 */
+	public CsvRecord copy() {
+		int length = (this.fieldCount == 0) ? 0 : this.fieldEnds[this.fieldCount - 1];
+		return new CsvRecord(Arrays.copyOf(this.fields, length), Arrays.copyOf(this.fieldStarts, this.fieldCount),
+				Arrays.copyOf(this.fieldEnds, this.fieldCount), this.fieldCount, this.recordNumber);
+	}
+
+	/**
+	 * Returns the number of fields in the record.
+	 *
+	 * @return
+	 */
+	public int getFieldCount() {
+		return this.fieldCount;
+	}
+
+	/**
+	 * Returns the 1-based number of the record, counting the header.
+	 *
+	 * @return
+	 */
+	public long getRecordNumber() {
+		return this.recordNumber;
+	}
+
+	/**
+	 * Returns the length of the field at {@code index}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getLength(int index) {
+		this.boundsCheck(index);
+		return this.fieldEnds[index] - this.fieldStarts[index];
+	}
+
+	/**
+	 * Return {@code true} if the field at {@code index} is empty.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public boolean isEmpty(int index) {
+		return this.getLength(index) == 0;
+	}
+
+	/**
+	 * Returns the field at {@code index} as a slice of the record buffer. The
+	 * same slice object is reused, and its contents are only valid until the
+	 * next call to this method or to {@link CsvReader#nextRecord()}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public CharSequence getField(int index) {
+		this.boundsCheck(index);
+		this.slice.start = this.fieldStarts[index];
+		this.slice.end = this.fieldEnds[index];
+		return this.slice;
+	}
+
+	/**
+	 * Returns the field at {@code index} as a new {@code String}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public String getString(int index) {
+		this.boundsCheck(index);
+		return new String(this.fields, this.fieldStarts[index], this.fieldEnds[index] - this.fieldStarts[index]);
+	}
+
+	/**
+	 * Returns the field at {@code index} as the string held by {@code pool},
+	 * which is only created if the pool does not hold it yet.
+	 *
+	 * @param index
+	 * @param pool
+	 * @return
+	 */
+	public String getString(int index, StringPool pool) {
+		this.boundsCheck(index);
+		return pool.intern(this.fields, this.fieldStarts[index], this.fieldEnds[index]);
+	}
+
+	/**
+	 * Return {@code true} if the field at {@code index} equals {@code value}.
+	 *
+	 * @param index
+	 * @param value
+	 * @return
+	 */
+	public boolean fieldEquals(int index, String value) {
+		this.boundsCheck(index);
+		int start = this.fieldStarts[index];
+		int length = this.fieldEnds[index] - start;
+		if (length != value.length()) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (this.fields[start + i] != value.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Parses the field at {@code index} as an int.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public int getInt(int index) {
+		long value = this.getLong(index);
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new NumberFormatException("Out of int range: " + this.getString(index));
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Parses the field at {@code index} as a long.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public long getLong(int index) {
+		this.boundsCheck(index);
+		int i = this.fieldStarts[index];
+		int end = this.fieldEnds[index];
+		boolean negative = false;
+		if (i < end && (this.fields[i] == '-' || this.fields[i] == '+')) {
+			negative = this.fields[i] == '-';
+			i++;
+		}
+		if (i == end) {
+			throw new NumberFormatException("Not a number: \"" + this.getString(index) + "\"");
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = this.fields[i] - '0';
+			if (digit < 0 || digit > 9) {
+				throw new NumberFormatException("Not a number: \"" + this.getString(index) + "\"");
+			}
+			value = Math.addExact(Math.multiplyExact(value, 10), digit);
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the field at {@code index} as a double. Plain decimals of up to 15
+	 * significant digits are parsed in place; anything else falls back to
+	 * {@link Double#parseDouble(String)}.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public double getDouble(int index) {
+		this.boundsCheck(index);
+		int i = this.fieldStarts[index];
+		int end = this.fieldEnds[index];
+		boolean negative = false;
+		if (i < end && (this.fields[i] == '-' || this.fields[i] == '+')) {
+			negative = this.fields[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean seenPoint = false;
+		boolean seenDigit = false;
+		boolean fast = i < end;
+		for (; i < end && fast; i++) {
+			char c = this.fields[i];
+			if (c >= '0' && c <= '9') {
+				seenDigit = true;
+				if (mantissa != 0 || c != '0') {
+					digits++;
+				}
+				mantissa = mantissa * 10 + (c - '0');
+				if (seenPoint) {
+					scale++;
+				}
+			} else if (c == '.' && !seenPoint) {
+				seenPoint = true;
+			} else {
+				fast = false;
+			}
+		}
+		if (!fast || !seenDigit || digits > MAX_FAST_DIGITS || scale >= POWERS_OF_TEN.length) {
+			return Double.parseDouble(this.getString(index));
+		}
+		double value = mantissa / POWERS_OF_TEN[scale];
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Parses the field at {@code index} as an ISO {@code yyyy-MM-dd} date.
+	 *
+	 * @param index
+	 * @return
+	 */
+	public LocalDate getDate(int index) {
+		this.boundsCheck(index);
+		int s = this.fieldStarts[index];
+		if (this.fieldEnds[index] - s != 10 || this.fields[s + 4] != '-' || this.fields[s + 7] != '-') {
+			return LocalDate.parse(this.getString(index));
+		}
+		int year = this.digits(s, 4);
+		int month = this.digits(s + 5, 2);
+		int day = this.digits(s + 8, 2);
+		if (year < 0 || month < 0 || day < 0) {
+			return LocalDate.parse(this.getString(index));
+		}
+		return LocalDate.of(year, month, day);
+	}
+
+	/**
+	 * Reads {@code count} decimal digits at {@code start}, or returns -1 if any
+	 * of them is not a digit.
+	 */
+	private int digits(int start, int count) {
+		int value = 0;
+		for (int i = start; i < start + count; i++) {
+			int digit = this.fields[i] - '0';
+			if (digit < 0 || digit > 9) {
+				return -1;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	/**
+	 * Check the validity of the bounds by {@code index}.
+	 *
+	 * @param index
+	 */
+	private void boundsCheck(int index) {
+		if (index < 0 || index >= this.fieldCount) {
+			throw new IndexOutOfBoundsException("Invalid field: " + index);
+		}
+	}
+
+	/**
+	 * A window onto one field of the record buffer.
+	 */
+	private class Slice implements CharSequence {
+
+		private int start;
+		private int end;
+
+		@Override
+		public int length() {
+			return this.end - this.start;
+		}
+
+		@Override
+		public char charAt(int i) {
+			if (i < 0 || i >= this.length()) {
+				throw new IndexOutOfBoundsException("Invalid index: " + i);
+			}
+			return fields[this.start + i];
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			return this.toString().subSequence(from, to);
+		}
+
+		@Override
+		public String toString() {
+			return new String(fields, this.start, this.end - this.start);
+		}
+	}
+
+}
@@ -0,0 +1,198 @@
+package com.yrl;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defers the lines of CSV-loaded sales. {@link #loadTotals()} reads the sale
+ * items file once and gives every sale in the sale map its line count and
+ * totals, without keeping the lines; it remembers instead the byte ranges of
+ * each sale's records. Lines asked for later, one sale's or a batch's, are
+ * parsed again from just those ranges, never by rereading the whole file.
+ */
+public class CsvSaleItemSource implements SaleItemSource {
+
+	/**
+	 * Handles one line of the sale items file; {@code item} is null if its item
+	 * code is unknown. {@code start} and {@code end} are the record's byte
+	 * range.
+	 */
+	private interface LineHandler {
+
+		void handle(String saleCode, Item item, long start, long end);
+	}
+
+	private final String filePath;
+	private final Map<String, Item> itemMap;
+	private final Map<String, Sale> saleMap;
+	private final Map<String, Person> personMap;
+
+	/**
+	 * Per sale code, the {@code [start, end)} byte ranges of its records, as
+	 * pairs; adjacent records share one range.
+	 */
+	private final Map<String, long[]> ranges = new HashMap<>();
+	private SaleItemResolver resolver;
+
+	public CsvSaleItemSource(String filePath, Map<String, Item> itemMap, Map<String, Sale> saleMap,
+			Map<String, Person> personMap) {
+		this.filePath = filePath;
+		this.itemMap = itemMap;
+		this.saleMap = saleMap;
+		this.personMap = personMap;
+	}
+
+	/**
+	 * Defers the lines of every sale in the sale map to this source, counts
+	 * each line of the file into its sale's totals and notes where it is.
+	 */
+	public void loadTotals() {
+		for (Sale sale : this.saleMap.values()) {
+			sale.deferItems(this);
+		}
+		this.ranges.clear();
+		this.resolver = null;
+		this.readLines((saleCode, item, start, end) -> {
+			Sale sale = this.saleMap.get(saleCode);
+			if (sale != null) {
+				sale.addDeferredLine(item);
+				this.addRange(saleCode, start, end);
+			} else {
+				System.out.println("Sale not found");
+			}
+		});
+	}
+
+	private void addRange(String saleCode, long start, long end) {
+		long[] r = this.ranges.get(saleCode);
+		if (r != null && r[r.length - 1] == start) {
+			r[r.length - 1] = end;
+			return;
+		}
+		r = (r == null) ? new long[2] : Arrays.copyOf(r, r.length + 2);
+		r[r.length - 2] = start;
+		r[r.length - 1] = end;
+		this.ranges.put(saleCode, r);
+	}
+
+	@Override
+	public void loadItems(Sale sale) {
+		sale.setItems(this.fetchItems(Collections.singletonList(sale)).get(sale));
+	}
+
+	/**
+	 * Reads the records of the given sales, in file order, with one positioned
+	 * read per range. The sales must be deferred to this source.
+	 */
+	@Override
+	public Map<Sale, List<Item>> fetchItems(List<Sale> sales) {
+		Map<String, List<Item>> lines = new HashMap<>(sales.size() * 2);
+		List<long[]> wanted = new ArrayList<>();
+		int size = 0;
+		for (Sale s : sales) {
+			if (s.getItemSource() != this) {
+				throw new IllegalArgumentException("Lines of sale " + s.getSaleCode() + " are not deferred to "
+						+ this.filePath);
+			}
+			lines.put(s.getSaleCode(), new ArrayList<>());
+			long[] r = this.ranges.get(s.getSaleCode());
+			for (int i = 0; r != null && i < r.length; i += 2) {
+				wanted.add(new long[] { r[i], r[i + 1] });
+				size += (int) (r[i + 1] - r[i]) + 1;
+			}
+		}
+		wanted.sort(Comparator.comparingLong(r -> r[0]));
+
+		byte[] bytes = new byte[size];
+		int n = 0;
+		try (FileChannel channel = FileChannel.open(Paths.get(this.filePath), StandardOpenOption.READ)) {
+			for (long[] r : wanted) {
+				int length = (int) (r[1] - r[0]);
+				ByteBuffer buffer = ByteBuffer.wrap(bytes, n, length);
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer, r[0] + buffer.position() - n) < 0) {
+						throw new IOException("Sale items file is shorter than when it was indexed: " + this.filePath);
+					}
+				}
+				n += length;
+				bytes[n++] = '\n';
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		String records = new String(bytes, 0, n, StandardCharsets.UTF_8);
+		try (CsvReader csv = new CsvReader(new StringReader(records), records.length() + 1)) {
+			this.readLines(csv, (saleCode, item, start, end) -> {
+				List<Item> items = lines.get(saleCode);
+				if (items != null) {
+					items.add(item);
+				}
+			});
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+
+		Map<Sale, List<Item>> result = new IdentityHashMap<>(sales.size() * 2);
+		for (Sale s : sales) {
+			result.put(s, lines.get(s.getSaleCode()));
+		}
+		return result;
+	}
+
+	/**
+	 * Feeds every line of the sale items file to {@code handler}, in file
+	 * order.
+	 */
+	private void readLines(LineHandler handler) {
+		try (CsvReader csv = CsvReader.open(this.filePath)) {
+			if (!csv.nextRecord()) {
+				System.out.print("No data in file");
+				return;
+			}
+			this.readLines(csv, handler);
+		} catch (FileNotFoundException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Feeds the remaining records of {@code csv} to {@code handler}. Reading
+	 * stops at the first malformed record, as in
+	 * {@link CsvDataLoader#loadSalesItem(String, Map, Map, Map)}. The resolver
+	 * is built from the item map once and kept for later reads.
+	 */
+	private void readLines(CsvReader csv, LineHandler handler) throws IOException {
+		if (this.resolver == null) {
+			this.resolver = new SaleItemResolver(this.itemMap);
+		}
+		SaleItemResolver resolver = this.resolver;
+		try {
+			while (csv.nextRecord()) {
+				int[] tokens = CsvDataLoader.nonEmptyFields(csv);
+				String saleCode = csv.getString(tokens[0]);
+				if (tokens.length > 1) {
+					handler.handle(saleCode, resolver.resolve(csv, tokens, this.personMap), csv.getRecordOffset(),
+							csv.getRecordEndOffset());
+				}
+			}
+		} catch (IndexOutOfBoundsException ioob) {
+		}
+	}
+
+}
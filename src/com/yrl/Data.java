@@ -6,18 +6,20 @@ package com.yrl;
 public class Data extends Item {
 
 	private double numGBs;
-	final private double TAX_RATE = .055;
-	private double pricePerGB;
+	static final long TAX_RATE_PER_MILLE = 55;
 
 	public Data(String code, String name, double pricePerGB, double numGBs) {
-		super(code, name);
-		this.pricePerGB = pricePerGB;
+		super(new ItemDefinition(code, name, Money.toCents(pricePerGB)));
 		this.numGBs = numGBs;
 	}
 
 	public Data(String code, String name, double pricePerGB) {
-		super(code, name);
-		this.pricePerGB = pricePerGB;
+		super(new ItemDefinition(code, name, Money.toCents(pricePerGB)));
+	}
+
+	public Data(ItemDefinition definition, double numGBs) {
+		super(definition);
+		this.numGBs = numGBs;
 	}
 
 	public double getNumGBs() {
@@ -25,7 +27,11 @@ public class Data extends Item {
 	}
 	
 	public double getPricePerGB() {
-		return this.pricePerGB;
+		return this.getDefinition().getPrice();
+	}
+	
+	public long getPricePerGBCents() {
+		return this.getDefinition().getPriceCents();
 	}
 	
 	@Override
@@ -38,25 +44,30 @@ public class Data extends Item {
 	 * This method gets the total values before tax based on amount of GBs purchased. 
 	 */
 	@Override
-	public double getSubTotal() {
-		double subTotal = this.getNumGBs() * this.getPricePerGB();
-		return Math.round(subTotal * 100) /100.0;
+	public long getSubTotalCents() {
+		return subTotalCents(this.getPricePerGBCents(), this.getNumGBs());
 	}
 	
 	/**
 	 * This method gets the tax. 
 	 */
 	@Override
-	public double getTaxes() {
-		return Math.round(this.getSubTotal() * TAX_RATE * 100) / 100.0;
+	public long getTaxesCents() {
+		return taxCents(this.getSubTotalCents());
 	}
-	
+
 	/**
-	 * This method gets the total values after tax. 
+	 * Returns the subtotal of {@code numGBs} GBs at the given price per GB.
 	 */
-	@Override
-	public double getGrandTotal() {
-		return this.getSubTotal() + this.getTaxes();
+	static long subTotalCents(long pricePerGBCents, double numGBs) {
+		return Money.multiply(pricePerGBCents, numGBs);
+	}
+
+	/**
+	 * Returns the tax on a data subtotal.
+	 */
+	static long taxCents(long subTotalCents) {
+		return Money.tax(subTotalCents, TAX_RATE_PER_MILLE);
 	}
 	
 }
@@ -22,9 +22,11 @@ public class DataConverter {
 			final String ITEM_JSON = "data/Items.json";
 			final String STORE_JSON = "data/Stores.json";
 			
-			Map<String, Person> mapPerson = CsvDataLoader.loadPersonData(PERSON_FILE);
-			Map<String, Store> mapStore = CsvDataLoader.loadStoreData(STORE_FILE, mapPerson);
-			Map<String, Item> mapItem = CsvDataLoader.loadItemData(ITEM_FILE);
+			ImportPipeline pipeline = new ImportPipeline(PERSON_FILE, ITEM_FILE, STORE_FILE, null, null);
+			pipeline.run();
+			Map<String, Person> mapPerson = pipeline.getPersonMap();
+			Map<String, Store> mapStore = pipeline.getStoreMap();
+			Map<String, Item> mapItem = pipeline.getItemMap();
 			
 			ConvertData.convertPersonsXML(mapPerson, PERSON_XML);
 			ConvertData.convertPersonsJSON(mapPerson, PERSON_JSON);
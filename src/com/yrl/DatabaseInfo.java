@@ -7,9 +7,16 @@ public class DatabaseInfo {
 
 	public static final String USERNAME = "IMPLEMENT";
 	public static final String PASSWORD = "IMPLEMENT";
-	public static final String PARAMETERS = "";
+	public static final String PARAMETERS = "rewriteBatchedStatements=true";
 	public static final String SERVER = "IMPLEMENT";
 	
 	public static final String URL = String.format("jdbc:mysql://%s/%s?%s", SERVER, USERNAME, PARAMETERS);
+
+	/* Connection pool settings, see ConnectionPool */
+	public static final int POOL_MIN_SIZE = 1;
+	public static final int POOL_MAX_SIZE = 10;
+	public static final long POOL_MAX_WAIT_MILLIS = 30000;
+	public static final long POOL_IDLE_TIMEOUT_MILLIS = 600000;
+	public static final long POOL_LEAK_THRESHOLD_MILLIS = 300000;
 	
 }
@@ -5,7 +5,9 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.Level;
@@ -22,6 +24,14 @@ import org.apache.logging.log4j.core.config.DefaultConfiguration;
 public class DatabaseLoader {
 
 	private static final Logger LOGGER = LogManager.getLogger(DatabaseLoader.class);
+
+	/**
+	 * Selects every sale item with its sale code, item columns and servicer
+	 * UUID, for {@link #saleItemFromRow(ResultSet, Map, Map)}.
+	 */
+	static final String SALE_ITEM_QUERY = "SELECT s.saleCode, si.*, i.type, i.name, i.code as itemCode, i.basePrice, p.uuid as servicerCode FROM SaleItem si "
+			+ "JOIN Sale s ON s.saleId = si.saleId " + "LEFT JOIN Item i ON si.itemId = i.itemId "
+			+ "LEFT JOIN Person p ON si.servicerId = p.personId";
 	
 	static {
 		Configurator.initialize(new DefaultConfiguration());
@@ -65,38 +75,36 @@ public class DatabaseLoader {
 		} catch (SQLException e) {
 			LOGGER.error("Could not load address with addressId = " + addressId, e);
 			return null;
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 		return address;
 	}
 	
 	/**
-	 * Loads up a collection of Persons from the database.
+	 * Loads up a collection of Persons from the database. Persons come with
+	 * their address columns joined in, and all emails are read with a second
+	 * query and attached by {@code personId}, so the load is two statements
+	 * on one connection however many persons there are.
 	 * 
 	 * @return personMap
 	 */
 	public static Map<String, Person> loadPersons() {
 
 		Map<String, Person> personMap = new HashMap<>();
+		Map<Integer, Person> personsById = new HashMap<>();
+		StringPool pool = new StringPool();
 
 		Connection conn = null;
 		LOGGER.debug("DEBUG: Attempting to load persons");
 
 		conn = ConnectionFactory.getConnection();
 
-		String query = "SELECT personId, uuid, lastName, firstName, addressId FROM Person";
+		String query = "SELECT p.personId, p.uuid, p.lastName, p.firstName, "
+				+ "a.addressId, a.street, a.city, a.state, a.zip FROM Person p "
+				+ "LEFT JOIN Address a ON a.addressId = p.addressId";
+		String queryEmail = "SELECT e.personId, e.email FROM Email e";
 
 		PreparedStatement ps = null;
 		ResultSet rs = null;
@@ -106,51 +114,58 @@ public class DatabaseLoader {
 			rs = ps.executeQuery();
 			while (rs.next()) {
 
-				String uuid = rs.getString("uuid");
-				String lastName = rs.getString("lastName");
-				String firstName = rs.getString("firstName");
-				int personId = rs.getInt("personId");
-				int addressId = rs.getInt("addressId");
+				String uuid = rs.getString("p.uuid");
+				String lastName = pool.intern(rs.getString("p.lastName"));
+				String firstName = pool.intern(rs.getString("p.firstName"));
+				int personId = rs.getInt("p.personId");
 
-				Address address = loadAddress(addressId);
+				Address address = addressFromRow(rs, pool);
 				Person person = new Person(uuid, lastName, firstName, address);
+				personsById.put(personId, person);
+				personMap.put(uuid, person);
+			}
+			rs.close();
+			ps.close();
 
-				PreparedStatement psEmail = null;
-				ResultSet rsEmail = null;
-
-				String queryEmail = "SELECT email FROM Email WHERE personId = ?";
-				psEmail = conn.prepareStatement(queryEmail);
-				psEmail.setInt(1, personId);
-				rsEmail = psEmail.executeQuery();
-				while (rsEmail.next()) {
-					String email = rsEmail.getString("email");
-					person.addEmail(email);
+			ps = conn.prepareStatement(queryEmail);
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				Person person = personsById.get(rs.getInt("e.personId"));
+				if (person != null) {
+					person.addEmail(rs.getString("e.email"));
 				}
-				rsEmail.close();
-				psEmail.close();
-				personMap.put(uuid, person);
 			}
 
 		} catch (SQLException e) {
 			LOGGER.error("Could not load persons", e);
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 		return personMap;
 	}
 
+	/**
+	 * Builds the Address in the joined {@code a.*} columns of the current row,
+	 * or returns null if the row has no address. Cities, states and zip codes
+	 * are taken from {@code pool}.
+	 * 
+	 * @param rs, pool
+	 * @return address
+	 */
+	private static Address addressFromRow(ResultSet rs, StringPool pool) throws SQLException {
+		rs.getInt("a.addressId");
+		if (rs.wasNull()) {
+			return null;
+		}
+		String street = rs.getString("a.street");
+		String city = pool.intern(rs.getString("a.city"));
+		String state = pool.intern(rs.getString("a.state"));
+		String zip = pool.intern(rs.getString("a.zip"));
+		return new Address(street, city, state, zip);
+	}
+
 	/**
 	 * Loads up a collection of Items from the database.
 	 * 
@@ -197,40 +212,44 @@ public class DatabaseLoader {
 		} catch (SQLException e) {
 			LOGGER.error("Could not load items", e);
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 		return itemMap;
 	}
 
 	/**
-	 * Loads up a collection of Stores from the database.
+	 * Loads up a collection of Stores from the database, with their address
+	 * columns joined in.
 	 * 
 	 * @return storeMap
 	 */
 	public static Map<String, Store> loadStores() {
+		return loadStores(loadPersons());
+	}
+
+	/**
+	 * Loads up a collection of Stores from the database, resolving managers
+	 * against the already loaded {@code personMap}.
+	 * 
+	 * @param personMap
+	 * @return storeMap
+	 */
+	public static Map<String, Store> loadStores(Map<String, Person> personMap) {
 
 		Map<String, Store> storeMap = new HashMap<>();
-		Map<String, Person> personMap = loadPersons();
+		StringPool pool = new StringPool();
 
 		Connection conn = null;
 		LOGGER.debug("DEBUG: Attempting to load stores");
 
 		conn = ConnectionFactory.getConnection();
 
-		String query = "SELECT st.storeId, st.storeCode, st.personId, st.addressId, p.uuid "
-				+ "FROM Store st JOIN Person p ON p.personId = st.personId";
+		String query = "SELECT st.storeId, st.storeCode, st.personId, p.uuid, "
+				+ "a.addressId, a.street, a.city, a.state, a.zip FROM Store st "
+				+ "JOIN Person p ON p.personId = st.personId "
+				+ "LEFT JOIN Address a ON a.addressId = st.addressId";
 
 		PreparedStatement ps = null;
 		ResultSet rs = null;
@@ -240,8 +259,7 @@ public class DatabaseLoader {
 			rs = ps.executeQuery();
 			while (rs.next()) {
 
-				int addressId = rs.getInt("st.addressId");
-				Address address = loadAddress(addressId);
+				Address address = addressFromRow(rs, pool);
 				String storeCode = rs.getString("st.storeCode");
 				String personId = rs.getString("p.uuid");
 				Person manager = personMap.get(personId);
@@ -253,19 +271,8 @@ public class DatabaseLoader {
 		} catch (SQLException e) {
 			LOGGER.error("Could not load stores", e);
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
-			e.printStackTrace();
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 		return storeMap;
@@ -277,10 +284,21 @@ public class DatabaseLoader {
 	 * @return saleMap
 	 */
 	public static Map<String, Sale> loadSales() {
+		Map<String, Person> personMap = loadPersons();
+		return loadSales(loadStores(personMap), personMap);
+	}
+
+	/**
+	 * Loads up a collection of Sale from the database, resolving stores and
+	 * persons against the already loaded {@code storeMap} and {@code personMap}.
+	 * Each sale is added to its store.
+	 * 
+	 * @param storeMap, personMap
+	 * @return saleMap
+	 */
+	public static Map<String, Sale> loadSales(Map<String, Store> storeMap, Map<String, Person> personMap) {
 		
 		Map<String, Sale> saleMap = new HashMap<>();
-		Map<String, Store> storeMap = loadStores();
-		Map<String, Person> personMap = loadPersons();
 		
 		Connection conn = null;
 		LOGGER.debug("DEBUG: Attempting to load sales");
@@ -294,7 +312,6 @@ public class DatabaseLoader {
 		PreparedStatement ps = null;
 		ResultSet rs = null;
 		try {
-			ps = conn.prepareStatement(query);
 			ps = conn.prepareStatement(query);
 			rs = ps.executeQuery();
 			while (rs.next()) {
@@ -310,177 +327,242 @@ public class DatabaseLoader {
 				Person salesPerson = personMap.get(salesPersonUuid);
 				Sale sale = new Sale(saleCode, store, customer, salesPerson, date);
 				saleMap.put(saleCode, sale);
+				if (store != null) {
+					store.addSale(sale);
+				}
 				
 			}
 			rs.close();
 		} catch (SQLException e) {
 			LOGGER.error("Could not load sales", e);
 			throw new RuntimeException(e);
-		}
-		
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 		
 		return saleMap;
 	}
 
 	/**
-	 * Loads up a collection of SalesItem from the database.
+	 * Loads up a collection of SalesItem from the database. Lines of the same
+	 * item share one {@link ItemDefinition}.
 	 * 
 	 * @return salesItemMap
 	 */
 	public static Map<String, Item> loadSalesItems(Map<String, Sale> saleMap) {
+		return loadSalesItems(saleMap, loadPersons());
+	}
+
+	/**
+	 * Loads up a collection of SalesItem from the database into the sales of
+	 * {@code saleMap}, resolving servicers against {@code personMap}. All sale
+	 * items are read with one query ordered by {@code saleId} and streamed
+	 * row by row, so memory stays bounded by one sale's lines. Consecutive rows
+	 * of the same sale are grouped and handed to that sale together.
+	 * 
+	 * @param saleMap, personMap
+	 * @return salesItemMap
+	 */
+	public static Map<String, Item> loadSalesItems(Map<String, Sale> saleMap, Map<String, Person> personMap) {
 
 		Map<String, Item> salesItemMap = new HashMap<>();
-		Map<String, Store> storeMap = loadStores();
-		Map<String, Person> personMap = loadPersons();
+		Map<String, ItemDefinition> definitions = new HashMap<>();
 
 		Connection conn = null;
 		LOGGER.debug("DEBUG: Attempting to load sales items");
 
 		conn = ConnectionFactory.getConnection();
 
-		String query = "SELECT s.saleId, s.saleCode, s.date, st.storeCode, s.customerId, s.salesPersonId FROM Sale s "
-				+ "LEFT JOIN Store st ON s.storeId = st.storeId " 
-				+ "LEFT JOIN Person c ON c.personId = s.customerId "
-				+ "LEFT JOIN Person e ON e.personId = s.salesPersonId";
-
-		String salesItemQuery = "SELECT si.*, i.type, i.name, i.code as itemCode, i.basePrice, p.uuid as servicerCode FROM SaleItem si "
-				+ "LEFT JOIN Item i ON si.itemId = i.itemId " + "LEFT JOIN Person p ON si.servicerId = p.personId "
-				+ "WHERE si.saleId = ?";
+		String query = SALE_ITEM_QUERY + " ORDER BY si.saleId";
 
 		PreparedStatement ps = null;
 		ResultSet rs = null;
-		PreparedStatement psSaleItem = null;
-		ResultSet rsSaleItem = null;
 		try {
-			ps = conn.prepareStatement(query);
+			ps = streamingStatement(conn, query);
 			rs = ps.executeQuery();
+			int currentSaleId = 0;
+			String currentSaleCode = null;
+			List<Item> lines = new ArrayList<>();
 			while (rs.next()) {
+				int saleId = rs.getInt("si.saleId");
+				if (currentSaleCode != null && saleId != currentSaleId) {
+					addLines(saleMap, currentSaleCode, lines);
+					lines.clear();
+				}
+				currentSaleId = saleId;
+				currentSaleCode = rs.getString("s.saleCode");
 
-				int saleId = rs.getInt("s.saleId");
-				String saleCode = rs.getString("s.saleCode");
-				String storeCode = rs.getString("st.storeCode");
-				String customerId = rs.getString("s.customerId");
-				String salesPersonId = rs.getString("s.salesPersonId");
-				LocalDate date = LocalDate.parse(rs.getString("s.date"));
-
-				psSaleItem = conn.prepareStatement(salesItemQuery);
-				psSaleItem.setInt(1, saleId);
-				rsSaleItem = psSaleItem.executeQuery();
-				
-				while (rsSaleItem.next()) {
-					String type = rsSaleItem.getString("i.type");
-					String servicerCode = rsSaleItem.getString("servicerCode");
-					String code = rsSaleItem.getString("itemCode");
-					String name = rsSaleItem.getString("i.name");
-					String productType = rsSaleItem.getString("si.productType");
-
-					Store store = storeMap.get(storeCode);
-					Person customer = personMap.get(customerId);
-					Person salesPerson = personMap.get(salesPersonId);
-					Sale s = new Sale(saleCode, store, customer, salesPerson, date);
-					store.addSale(s);
-
-					if (type.equals("D")) {
-						double pricePerGB = rsSaleItem.getDouble("i.basePrice");
-						double numGBs = rsSaleItem.getDouble("si.numGBs");
-						Data sale = new Data(code, name, pricePerGB, numGBs);
-						salesItemMap.put(saleCode, sale);
-						
-						if(saleMap.containsKey(saleCode)) {
-							saleMap.get(saleCode).addSale(sale);
-						} else {
-							LOGGER.error("Sale not found");
-						}
-						
-					} else if (type.equals("S")) {
-						double hourlyPrice = rsSaleItem.getDouble("i.basePrice");
-						double numHours = rsSaleItem.getDouble("si.numHours");
-						Person servicer = personMap.get(servicerCode);
-						Service sale = new Service(code, name, hourlyPrice, numHours, servicer);
-						salesItemMap.put(saleCode, sale);
-						
-						if(saleMap.containsKey(saleCode)) {
-							saleMap.get(saleCode).addSale(sale);
-						} else {
-							LOGGER.error("Sale not found");
-						}
-						
-					} else if (type.equals("V")) {
-						double pricePerPeriod = rsSaleItem.getDouble("i.basePrice");
-						String phoneNum = rsSaleItem.getString("si.phoneNum");
-						int numDays = rsSaleItem.getInt("si.numDays");
-						Voice sale = new Voice(code, name, pricePerPeriod, phoneNum, numDays);
-						salesItemMap.put(saleCode, sale);
-						
-						if(saleMap.containsKey(saleCode)) {
-							saleMap.get(saleCode).addSale(sale);
-						} else {
-							LOGGER.error("Sale not found");
-						}
-						
-					} else if (type.equals("P")) {
-						double basePrice = rsSaleItem.getDouble("i.basePrice");
-						if (productType.equals("P")) {
-							Purchase sale = new Purchase(code, name, basePrice);
-							salesItemMap.put(saleCode, sale);
-							
-							if(saleMap.containsKey(saleCode)) {
-								saleMap.get(saleCode).addSale(sale);
-							} else {
-								LOGGER.error("Sale not found");
-							}
-							
-						} else if (productType.equals("L")) {
-							LocalDate startDate = LocalDate.parse(rsSaleItem.getString("si.startDate"));
-							LocalDate endDate = LocalDate.parse(rsSaleItem.getString("si.endDate"));
-							Lease sale = new Lease(code, name, basePrice, startDate, endDate);
-							salesItemMap.put(saleCode, sale);
-							
-							if(saleMap.containsKey(saleCode)) {
-								saleMap.get(saleCode).addSale(sale);
-							} else {
-								LOGGER.error("Sale not found");
-							}
-						}
-					} else {
-						LOGGER.error("Invalid type in SaleItem");
-					}
+				Item item = saleItemFromRow(rs, definitions, personMap);
+				if (item != null) {
+					salesItemMap.put(currentSaleCode, item);
+					lines.add(item);
 				}
 			}
+			if (currentSaleCode != null) {
+				addLines(saleMap, currentSaleCode, lines);
+			}
 
 		} catch (SQLException e) {
 			LOGGER.error("Could not load sale items", e);
 			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
+		return salesItemMap;
+	}
+
+	/**
+	 * Loads every sale line in the database into a {@link SaleLineStore}, in one
+	 * streamed pass. Each line is copied into the store's columns and dropped,
+	 * so the sales in {@code saleMap} are left without items.
+	 * 
+	 * @param saleMap, personMap
+	 * @return store
+	 */
+	public static SaleLineStore loadSaleLines(Map<String, Sale> saleMap, Map<String, Person> personMap) {
+
+		SaleLineStore store = new SaleLineStore();
+		Map<String, ItemDefinition> definitions = new HashMap<>();
+
+		Connection conn = null;
+		LOGGER.debug("DEBUG: Attempting to load sale lines");
+
+		conn = ConnectionFactory.getConnection();
+
+		PreparedStatement ps = null;
+		ResultSet rs = null;
 		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (psSaleItem != null && !psSaleItem.isClosed()) 
-				psSaleItem.close();
-			if (rsSaleItem != null && !rsSaleItem.isClosed()) 
-				rsSaleItem.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
+			ps = streamingStatement(conn, SALE_ITEM_QUERY);
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				Sale sale = saleMap.get(rs.getString("s.saleCode"));
+				Item item = saleItemFromRow(rs, definitions, personMap);
+				if (sale == null) {
+					LOGGER.error("Sale not found");
+				} else if (item != null) {
+					store.add(sale, item);
+				}
+			}
 		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
+			LOGGER.error("Could not load sale lines", e);
 			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
-		return salesItemMap;
+		return store;
+	}
+
+	/**
+	 * Adds the grouped {@code lines} of one sale to it.
+	 */
+	private static void addLines(Map<String, Sale> saleMap, String saleCode, List<Item> lines) {
+		Sale sale = saleMap.get(saleCode);
+		if (sale == null) {
+			LOGGER.error("Sale not found");
+			return;
+		}
+		for (Item item : lines) {
+			sale.addSale(item);
+		}
+	}
+
+	/**
+	 * Prepares a forward-only, read-only statement whose rows MySQL
+	 * Connector/J streams one at a time instead of buffering the whole result.
+	 * No other statement may run on {@code conn} until its result is closed.
+	 * 
+	 * @param conn, query
+	 * @return ps
+	 */
+	private static PreparedStatement streamingStatement(Connection conn, String query) throws SQLException {
+		PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		ps.setFetchSize(Integer.MIN_VALUE);
+		return ps;
+	}
+
+	/**
+	 * Loads only the line counts and totals of the sales in {@code saleMap}, in
+	 * one streamed pass over the sale items. Each sale's lines are fetched, a batch of
+	 * sales at a time, the first time they are asked for.
+	 * 
+	 * @param saleMap, personMap
+	 */
+	public static void loadSaleTotals(Map<String, Sale> saleMap, Map<String, Person> personMap) {
+
+		DatabaseSaleItemSource source = new DatabaseSaleItemSource(personMap);
+		for (Sale sale : saleMap.values()) {
+			source.defer(sale);
+		}
+		Map<String, ItemDefinition> definitions = new HashMap<>();
+
+		Connection conn = null;
+		LOGGER.debug("DEBUG: Attempting to load sale totals");
+
+		conn = ConnectionFactory.getConnection();
+
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = streamingStatement(conn, SALE_ITEM_QUERY);
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				String saleCode = rs.getString("s.saleCode");
+				Item item = saleItemFromRow(rs, definitions, personMap);
+				Sale sale = saleMap.get(saleCode);
+				if (sale == null) {
+					LOGGER.error("Sale not found");
+				} else if (item != null) {
+					sale.addDeferredLine(item);
+				}
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not load sale totals", e);
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
+		}
+	}
+
+	/**
+	 * Builds the sale line in the current row of a {@link #SALE_ITEM_QUERY}
+	 * result. Lines of the same item share the {@link ItemDefinition} kept in
+	 * {@code definitions}. Returns null if the row's type is invalid.
+	 * 
+	 * @param rs, definitions, personMap
+	 * @return item
+	 */
+	static Item saleItemFromRow(ResultSet rs, Map<String, ItemDefinition> definitions,
+			Map<String, Person> personMap) throws SQLException {
+		String type = rs.getString("i.type");
+		String code = rs.getString("itemCode");
+		ItemDefinition definition = definitions.get(code);
+		if (definition == null) {
+			definition = new ItemDefinition(code, rs.getString("i.name"), Money.toCents(rs.getDouble("i.basePrice")));
+			definitions.put(code, definition);
+		}
+
+		if (type.equals("D")) {
+			return new Data(definition, rs.getDouble("si.numGBs"));
+		} else if (type.equals("S")) {
+			Person servicer = personMap.get(rs.getString("servicerCode"));
+			return new Service(definition, rs.getDouble("si.numHours"), servicer);
+		} else if (type.equals("V")) {
+			return new Voice(definition, rs.getString("si.phoneNum"), rs.getInt("si.numDays"));
+		} else if (type.equals("P")) {
+			String productType = rs.getString("si.productType");
+			if (productType.equals("P")) {
+				return new Purchase(definition);
+			} else if (productType.equals("L")) {
+				LocalDate startDate = LocalDate.parse(rs.getString("si.startDate"));
+				LocalDate endDate = LocalDate.parse(rs.getString("si.endDate"));
+				return new Lease(definition, startDate, endDate);
+			}
+			return null;
+		}
+		LOGGER.error("Invalid type in SaleItem");
+		return null;
 	}
 
 }
\ No newline at end of file
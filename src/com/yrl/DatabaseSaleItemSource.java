@@ -0,0 +1,127 @@
+package com.yrl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Fetches the lines of sales loaded by {@link DatabaseLoader#loadSaleTotals}.
+ * When a sale's items are first asked for, its lines and those of the next
+ * sales still waiting, up to {@code BATCH_SIZE} sales in all, are read with a
+ * single query.
+ */
+public class DatabaseSaleItemSource implements SaleItemSource {
+
+	private static final Logger LOGGER = LogManager.getLogger(DatabaseSaleItemSource.class);
+
+	private static final int BATCH_SIZE = 100;
+
+	private final Map<String, Person> personMap;
+	private final Map<String, ItemDefinition> definitions;
+	private final ArrayDeque<Sale> pending;
+
+	public DatabaseSaleItemSource(Map<String, Person> personMap) {
+		this.personMap = personMap;
+		this.definitions = new HashMap<>();
+		this.pending = new ArrayDeque<>();
+	}
+
+	/**
+	 * Defers the lines of {@code sale} to this source.
+	 *
+	 * @param sale
+	 */
+	void defer(Sale sale) {
+		sale.deferItems(this);
+		this.pending.add(sale);
+	}
+
+	@Override
+	public void loadItems(Sale sale) {
+		Map<String, Sale> batch = new LinkedHashMap<>();
+		batch.put(sale.getSaleCode(), sale);
+		while (batch.size() < BATCH_SIZE && !this.pending.isEmpty()) {
+			Sale s = this.pending.poll();
+			if (s.getItemSource() == this) {
+				batch.put(s.getSaleCode(), s);
+			}
+		}
+		Map<String, List<Item>> lines = this.fetch(batch.keySet());
+		for (Sale s : batch.values()) {
+			List<Item> items = lines.get(s.getSaleCode());
+			s.setItems((items == null) ? new ArrayList<>() : items);
+		}
+	}
+
+	@Override
+	public Map<Sale, List<Item>> fetchItems(List<Sale> sales) {
+		List<String> saleCodes = new ArrayList<>(sales.size());
+		for (Sale s : sales) {
+			saleCodes.add(s.getSaleCode());
+		}
+		Map<String, List<Item>> lines = this.fetch(saleCodes);
+		Map<Sale, List<Item>> result = new IdentityHashMap<>(sales.size() * 2);
+		for (Sale s : sales) {
+			List<Item> items = lines.get(s.getSaleCode());
+			result.put(s, (items == null) ? new ArrayList<>() : items);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the lines of the given sales, keyed by sale code.
+	 */
+	private Map<String, List<Item>> fetch(Iterable<String> saleCodes) {
+
+		Map<String, List<Item>> lines = new HashMap<>();
+
+		Connection conn = null;
+		LOGGER.debug("DEBUG: Attempting to load a batch of sale items");
+
+		conn = ConnectionFactory.getConnection();
+
+		StringBuilder query = new StringBuilder(DatabaseLoader.SALE_ITEM_QUERY).append(" WHERE s.saleCode IN (");
+		int n = 0;
+		for (String code : saleCodes) {
+			query.append((n++ == 0) ? "?" : ", ?");
+		}
+		query.append(")");
+
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			ps = conn.prepareStatement(query.toString());
+			int i = 1;
+			for (String code : saleCodes) {
+				ps.setString(i++, code);
+			}
+			rs = ps.executeQuery();
+			while (rs.next()) {
+				String saleCode = rs.getString("s.saleCode");
+				Item item = DatabaseLoader.saleItemFromRow(rs, this.definitions, this.personMap);
+				if (item != null) {
+					lines.computeIfAbsent(saleCode, k -> new ArrayList<>()).add(item);
+				}
+			}
+		} catch (SQLException e) {
+			LOGGER.error("Could not load sale items", e);
+			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
+		}
+
+		return lines;
+	}
+
+}
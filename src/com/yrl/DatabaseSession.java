@@ -0,0 +1,70 @@
+package com.yrl;
+
+import java.util.Map;
+
+/**
+ * One load of the database as a single object graph. Each table is read at
+ * most once, the first time it is needed, and every reference is resolved
+ * against the maps already loaded: a store's manager, a sale's customer and
+ * salesperson and a service line's servicer are the very Person objects in
+ * {@link #getPersonMap()}, and a sale's store is the one in
+ * {@link #getStoreMap()}.
+ */
+public class DatabaseSession {
+
+	private Map<String, Person> personMap;
+	private Map<String, Item> itemMap;
+	private Map<String, Store> storeMap;
+	private Map<String, Sale> saleMap;
+	private SaleLineStore saleLines;
+
+	public Map<String, Person> getPersonMap() {
+		if (this.personMap == null) {
+			this.personMap = DatabaseLoader.loadPersons();
+		}
+		return this.personMap;
+	}
+
+	public Map<String, Item> getItemMap() {
+		if (this.itemMap == null) {
+			this.itemMap = DatabaseLoader.loadItems();
+		}
+		return this.itemMap;
+	}
+
+	public Map<String, Store> getStoreMap() {
+		if (this.storeMap == null) {
+			this.storeMap = DatabaseLoader.loadStores(this.getPersonMap());
+		}
+		return this.storeMap;
+	}
+
+	/**
+	 * Returns the sales, each added to its store. Sales come with their line
+	 * counts and totals; their lines are fetched in batches the first time they
+	 * are asked for.
+	 *
+	 * @return saleMap
+	 */
+	public Map<String, Sale> getSaleMap() {
+		if (this.saleMap == null) {
+			this.saleMap = DatabaseLoader.loadSales(this.getStoreMap(), this.getPersonMap());
+			DatabaseLoader.loadSaleTotals(this.saleMap, this.getPersonMap());
+		}
+		return this.saleMap;
+	}
+
+	/**
+	 * Returns every sale line in columnar form, read in one streamed pass
+	 * without materializing any sale's items.
+	 *
+	 * @return store
+	 */
+	public SaleLineStore getSaleLineStore() {
+		if (this.saleLines == null) {
+			this.saleLines = DatabaseLoader.loadSaleLines(this.getSaleMap(), this.getPersonMap());
+		}
+		return this.saleLines;
+	}
+
+}
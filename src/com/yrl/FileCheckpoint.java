@@ -0,0 +1,123 @@
+package com.yrl;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * How far an append-only CSV file has been loaded: the byte offset just past
+ * the last record read, a CRC-32 of the line that ends there, the number of
+ * records read including the header, and the file's size and modification
+ * time when it was read. {@link IncrementalCsvLoader} uses it to read only the
+ * records appended since, and to notice when a file was rewritten instead.
+ */
+public class FileCheckpoint {
+
+	private final String filePath;
+	private final long offset;
+	private final long lastLineHash;
+	private final long recordCount;
+	private final long size;
+	private final long lastModified;
+
+	public FileCheckpoint(String filePath, long offset, long lastLineHash, long recordCount, long size,
+			long lastModified) {
+		this.filePath = filePath;
+		this.offset = offset;
+		this.lastLineHash = lastLineHash;
+		this.recordCount = recordCount;
+		this.size = size;
+		this.lastModified = lastModified;
+	}
+
+	public String getFilePath() {
+		return filePath;
+	}
+
+	/**
+	 * Returns the byte offset just past the last record read.
+	 *
+	 * @return
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * Returns the CRC-32 of the line ending at {@link #getOffset()}, including
+	 * its line break, or 0 if nothing has been read.
+	 *
+	 * @return
+	 */
+	public long getLastLineHash() {
+		return lastLineHash;
+	}
+
+	/**
+	 * Returns the number of records read, counting the header.
+	 *
+	 * @return
+	 */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * Reads a checkpoint saved by {@link #write(String)}. Returns null if there
+	 * is no file at {@code checkpointPath}.
+	 *
+	 * @param checkpointPath
+	 * @return checkpoint
+	 */
+	public static FileCheckpoint read(String checkpointPath) {
+		Properties p = new Properties();
+		try (InputStream in = new FileInputStream(checkpointPath)) {
+			p.load(in);
+		} catch (FileNotFoundException e) {
+			return null;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		return new FileCheckpoint(p.getProperty("filePath"), Long.parseLong(p.getProperty("offset")),
+				Long.parseLong(p.getProperty("lastLineHash")), Long.parseLong(p.getProperty("recordCount")),
+				Long.parseLong(p.getProperty("size")), Long.parseLong(p.getProperty("lastModified")));
+	}
+
+	/**
+	 * Saves this checkpoint to {@code checkpointPath}.
+	 *
+	 * @param checkpointPath
+	 */
+	public void write(String checkpointPath) {
+		Properties p = new Properties();
+		p.setProperty("filePath", this.filePath);
+		p.setProperty("offset", Long.toString(this.offset));
+		p.setProperty("lastLineHash", Long.toString(this.lastLineHash));
+		p.setProperty("recordCount", Long.toString(this.recordCount));
+		p.setProperty("size", Long.toString(this.size));
+		p.setProperty("lastModified", Long.toString(this.lastModified));
+		try (OutputStream out = new FileOutputStream(checkpointPath)) {
+			p.store(out, null);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return filePath + "@" + offset + " (" + recordCount + " records)";
+	}
+
+}
@@ -0,0 +1,391 @@
+package com.yrl;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Imports the persons, items, stores, sales and sale items files at the same
+ * time. Each file is read on its own thread into one bounded queue; persons and
+ * items are parsed on their reader threads, the other files are handed over as
+ * raw records. A single merge thread, the caller of {@link #run()}, owns every
+ * map. A store, sale or sale item record is resolved as soon as the persons,
+ * stores, sales and items it refers to have arrived, or their files have been
+ * read in full. Until then it is parked, and so are the records after it in the
+ * same file, so every file is still applied in file order. A reader may only
+ * have {@value #PARK_LIMIT} records of its file queued or parked at a time and
+ * otherwise waits, so a file read far ahead of the ones it refers to stops
+ * being read instead of being parked in memory.
+ *
+ * The maps come out as the sequential {@link CsvDataLoader} methods would build
+ * them, except that a reference to a person whose UUID appears twice in the
+ * persons file may resolve to the earlier of the two.
+ */
+public class ImportPipeline {
+
+	private static final int QUEUE_CAPACITY = 1024;
+	private static final int PARK_LIMIT = 4096;
+
+	private enum Source {
+		PERSONS, ITEMS, STORES, SALES, SALE_ITEMS
+	}
+
+	/**
+	 * One parsed person or item, one raw record, the end of a file, or the
+	 * failure of a reader.
+	 */
+	private static final class Event {
+
+		private final Source source;
+		private final Object payload;
+		private final boolean end;
+		private final RuntimeException failure;
+
+		private Event(Source source, Object payload, boolean end, RuntimeException failure) {
+			this.source = source;
+			this.payload = payload;
+			this.end = end;
+			this.failure = failure;
+		}
+	}
+
+	private final Map<Source, String> files;
+	private final Map<String, Person> personMap;
+	private final Map<String, Item> itemMap;
+	private final Map<String, Store> storeMap;
+	private final Map<String, Sale> saleMap;
+	private final Map<String, Item> salesItemMap;
+	private final SaleItemResolver resolver;
+	private final LoadDiagnostics diagnostics;
+	private final StringPool pool;
+
+	private final boolean[] done;
+	private final Semaphore[] permits;
+	private final ArrayDeque<CsvRecord> parkedStores;
+	private final ArrayDeque<CsvRecord> parkedSales;
+	private final ArrayDeque<CsvRecord> parkedSaleItems;
+	private boolean storesStopped;
+	private boolean salesStopped;
+	private boolean saleItemsStopped;
+
+	/**
+	 * Creates a pipeline over the given files. A null path skips that file.
+	 *
+	 * @param personFile, itemFile, storeFile, saleFile, saleItemFile
+	 */
+	public ImportPipeline(String personFile, String itemFile, String storeFile, String saleFile,
+			String saleItemFile) {
+		this.files = new HashMap<>();
+		this.files.put(Source.PERSONS, personFile);
+		this.files.put(Source.ITEMS, itemFile);
+		this.files.put(Source.STORES, storeFile);
+		this.files.put(Source.SALES, saleFile);
+		this.files.put(Source.SALE_ITEMS, saleItemFile);
+		this.personMap = new HashMap<>();
+		this.itemMap = new HashMap<>();
+		this.storeMap = new HashMap<>();
+		this.saleMap = new HashMap<>();
+		this.salesItemMap = new HashMap<>();
+		this.resolver = new SaleItemResolver();
+		this.diagnostics = new LoadDiagnostics();
+		this.pool = new StringPool();
+		this.done = new boolean[Source.values().length];
+		this.permits = new Semaphore[Source.values().length];
+		this.permits[Source.STORES.ordinal()] = new Semaphore(PARK_LIMIT);
+		this.permits[Source.SALES.ordinal()] = new Semaphore(PARK_LIMIT);
+		this.permits[Source.SALE_ITEMS.ordinal()] = new Semaphore(PARK_LIMIT);
+		this.parkedStores = new ArrayDeque<>();
+		this.parkedSales = new ArrayDeque<>();
+		this.parkedSaleItems = new ArrayDeque<>();
+	}
+
+	/**
+	 * Reads every file and fills in the maps. Returns once all of them are
+	 * loaded.
+	 */
+	public void run() {
+		BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		ExecutorService readers = Executors.newFixedThreadPool(Source.values().length);
+		try {
+			for (Source source : Source.values()) {
+				String filePath = this.files.get(source);
+				if (filePath == null) {
+					this.done[source.ordinal()] = true;
+				} else {
+					Semaphore sourcePermits = this.permits[source.ordinal()];
+					readers.submit(() -> read(source, filePath, queue, sourcePermits));
+				}
+			}
+			while (!this.allRead()) {
+				this.handle(queue.take());
+				this.drain();
+			}
+			this.drain();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} finally {
+			readers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads one file on a reader thread, skipping its header. If
+	 * {@code permits} is not null each record takes one, which the merge thread
+	 * gives back once the record is applied or dropped.
+	 */
+	private static void read(Source source, String filePath, BlockingQueue<Event> queue, Semaphore permits) {
+		try {
+			try (CsvReader csv = CsvReader.open(filePath)) {
+				if (!csv.nextRecord()) {
+					System.out.print("No data in file");
+				} else {
+					StringPool pool = new StringPool();
+					while (csv.nextRecord()) {
+						Object payload = parse(source, csv, pool);
+						if (payload != null) {
+							if (permits != null) {
+								permits.acquire();
+							}
+							queue.put(new Event(source, payload, false, null));
+						}
+					}
+				}
+			} catch (IOException e) {
+				queue.put(new Event(source, null, false, new RuntimeException(e)));
+				return;
+			} catch (RuntimeException e) {
+				queue.put(new Event(source, null, false, e));
+				return;
+			}
+			queue.put(new Event(source, null, true, null));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Parses persons and items, which refer to nothing, on the reader thread.
+	 * Every other record is copied for the merge thread to resolve.
+	 */
+	private static Object parse(Source source, CsvReader csv, StringPool pool) {
+		switch (source) {
+		case PERSONS:
+			return CsvDataLoader.parsePerson(csv, pool);
+		case ITEMS:
+			return CsvDataLoader.parseItem(csv);
+		default:
+			return csv.copy();
+		}
+	}
+
+	private boolean allRead() {
+		for (boolean d : this.done) {
+			if (!d) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void handle(Event e) {
+		if (e.failure != null) {
+			throw e.failure;
+		}
+		if (e.end) {
+			this.done[e.source.ordinal()] = true;
+			return;
+		}
+		switch (e.source) {
+		case PERSONS:
+			Person person = (Person) e.payload;
+			this.personMap.put(person.getUuid(), person);
+			break;
+		case ITEMS:
+			Item item = (Item) e.payload;
+			this.itemMap.put(item.getCode(), item);
+			this.resolver.add(item);
+			break;
+		case STORES:
+			if (!this.storesStopped) {
+				this.parkedStores.add((CsvRecord) e.payload);
+			} else {
+				this.release(Source.STORES, 1);
+			}
+			break;
+		case SALES:
+			if (!this.salesStopped) {
+				this.parkedSales.add((CsvRecord) e.payload);
+			} else {
+				this.release(Source.SALES, 1);
+			}
+			break;
+		case SALE_ITEMS:
+			if (!this.saleItemsStopped) {
+				this.parkedSaleItems.add((CsvRecord) e.payload);
+			} else {
+				this.release(Source.SALE_ITEMS, 1);
+			}
+			break;
+		}
+	}
+
+	/**
+	 * Lets the reader of {@code source} read {@code n} more records.
+	 */
+	private void release(Source source, int n) {
+		if (n > 0) {
+			this.permits[source.ordinal()].release(n);
+		}
+	}
+
+	/**
+	 * Resolves parked records, oldest first, until each file's oldest record
+	 * still lacks a reference. Stores go first since sales refer to them, and
+	 * sales before sale items.
+	 */
+	private void drain() {
+		while (!this.parkedStores.isEmpty() && this.storeReady(this.parkedStores.peek())) {
+			this.applyStore(this.parkedStores.poll());
+			this.release(Source.STORES, 1);
+		}
+		while (!this.parkedSales.isEmpty() && this.saleReady(this.parkedSales.peek())) {
+			this.applySale(this.parkedSales.poll());
+			this.release(Source.SALES, 1);
+		}
+		while (!this.parkedSaleItems.isEmpty() && this.saleItemReady(this.parkedSaleItems.peek())) {
+			this.applySaleItem(this.parkedSaleItems.poll());
+			this.release(Source.SALE_ITEMS, 1);
+		}
+	}
+
+	private boolean personKnown(String uuid) {
+		return this.done[Source.PERSONS.ordinal()] || this.personMap.containsKey(uuid);
+	}
+
+	private boolean storesComplete() {
+		return this.storesStopped || (this.done[Source.STORES.ordinal()] && this.parkedStores.isEmpty());
+	}
+
+	private boolean salesComplete() {
+		return this.salesStopped || (this.done[Source.SALES.ordinal()] && this.parkedSales.isEmpty());
+	}
+
+	private boolean storeReady(CsvRecord csv) {
+		return CsvDataLoader.fieldCount(csv) != 6 || this.personKnown(csv.getString(1));
+	}
+
+	private void applyStore(CsvRecord csv) {
+		try {
+			Store store = CsvDataLoader.parseStore(csv, this.personMap, this.pool);
+			if (store != null) {
+				this.storeMap.put(store.getStoreCode(), store);
+			}
+		} catch (IndexOutOfBoundsException ioob) {
+			System.out.print("Out of bounds in StoreData\n");
+			this.storesStopped = true;
+			this.release(Source.STORES, this.parkedStores.size());
+			this.parkedStores.clear();
+		}
+	}
+
+	private boolean saleReady(CsvRecord csv) {
+		if (CsvDataLoader.fieldCount(csv) != 5) {
+			return true;
+		}
+		return this.personKnown(csv.getString(2)) && this.personKnown(csv.getString(3))
+				&& (this.storesComplete() || this.storeMap.containsKey(csv.getString(1)));
+	}
+
+	private void applySale(CsvRecord csv) {
+		try {
+			Sale sale = CsvDataLoader.parseSale(csv, this.storeMap, this.personMap);
+			if (sale != null) {
+				CsvDataLoader.addSale(this.saleMap, sale, this.files.get(Source.SALES), csv.getRecordNumber(),
+						this.diagnostics);
+			}
+		} catch (IndexOutOfBoundsException ioob) {
+			System.out.print("Out of bounds in SalesData\n");
+			this.salesStopped = true;
+			this.release(Source.SALES, this.parkedSales.size());
+			this.parkedSales.clear();
+		}
+	}
+
+	private boolean saleItemReady(CsvRecord csv) {
+		int[] tokens = CsvDataLoader.nonEmptyFields(csv);
+		if (tokens.length < 2) {
+			return true;
+		}
+		if (!this.salesComplete() && !this.saleMap.containsKey(csv.getString(tokens[0]))) {
+			return false;
+		}
+		Item definition = this.resolver.getDefinition(csv.getString(tokens[1]));
+		if (definition == null) {
+			return this.done[Source.ITEMS.ordinal()];
+		}
+		if (definition instanceof Service && tokens.length > 3) {
+			return this.personKnown(csv.getString(tokens[3]));
+		}
+		return true;
+	}
+
+	private void applySaleItem(CsvRecord csv) {
+		try {
+			int[] tokens = CsvDataLoader.nonEmptyFields(csv);
+			String saleCode = csv.getString(tokens[0]);
+			if (tokens.length > 1) {
+				Item a = this.resolver.resolve(csv, tokens, this.personMap);
+				if (a != null) {
+					this.salesItemMap.put(saleCode, a);
+				}
+
+				if (this.saleMap.containsKey(saleCode)) {
+					this.saleMap.get(saleCode).addSale(a);
+				} else {
+					System.out.println("Sale not found");
+				}
+			}
+		} catch (IndexOutOfBoundsException ioob) {
+			this.saleItemsStopped = true;
+			this.release(Source.SALE_ITEMS, this.parkedSaleItems.size());
+			this.parkedSaleItems.clear();
+		}
+	}
+
+	public Map<String, Person> getPersonMap() {
+		return personMap;
+	}
+
+	public Map<String, Item> getItemMap() {
+		return itemMap;
+	}
+
+	public Map<String, Store> getStoreMap() {
+		return storeMap;
+	}
+
+	public Map<String, Sale> getSaleMap() {
+		return saleMap;
+	}
+
+	public Map<String, Item> getSalesItemMap() {
+		return salesItemMap;
+	}
+
+	/**
+	 * Returns the records rejected during the import, such as duplicate sales.
+	 *
+	 * @return
+	 */
+	public LoadDiagnostics getDiagnostics() {
+		return diagnostics;
+	}
+
+}
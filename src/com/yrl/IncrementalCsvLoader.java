@@ -0,0 +1,279 @@
+package com.yrl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Loads append-only sales and sale items files a piece at a time. Each call
+ * starts at the {@link FileCheckpoint} left by the previous one, reads only the
+ * records appended since, merges them into the maps and stores already loaded,
+ * and returns the new checkpoint. Pass a null checkpoint to read a file from
+ * the start.
+ *
+ * Only complete lines are read: a trailing line without a line break may still
+ * be being written and is left for the next call. For the same reason a quoted
+ * field must not contain a line break.
+ *
+ * A record that cannot be applied, whether malformed or referring to something
+ * unknown, is rejected into the given {@link LoadDiagnostics} and skipped, and
+ * the rest of the batch is still read. The checkpoint returned therefore always
+ * lies past records that were each either applied or rejected, so reading on
+ * from it never applies a record twice.
+ */
+public class IncrementalCsvLoader {
+
+	private static final int SCAN_BUFFER_SIZE = 1 << 12;
+
+	/**
+	 * Handles one newly read record; {@code recordNumber} counts the header.
+	 */
+	private interface RecordHandler {
+
+		void handle(CsvRecord csv, long recordNumber);
+	}
+
+	/**
+	 * Reads the sales appended to the given file since {@code checkpoint} and
+	 * merges them into {@code saleMap} and their stores. A sale whose code is
+	 * already loaded, or a malformed record, is rejected into
+	 * {@code diagnostics}.
+	 *
+	 * @param filePath, checkpoint, saleMap, storeMap, personMap, diagnostics
+	 * @return checkpoint
+	 */
+	public static FileCheckpoint loadSaleData(String filePath, FileCheckpoint checkpoint, Map<String, Sale> saleMap,
+			Map<String, Store> storeMap, Map<String, Person> personMap, LoadDiagnostics diagnostics) {
+		return readAppended(filePath, checkpoint, "sale", diagnostics, (csv, recordNumber) -> {
+			Sale sale = CsvDataLoader.parseSale(csv, storeMap, personMap);
+			if (sale != null) {
+				CsvDataLoader.addSale(saleMap, sale, filePath, recordNumber, diagnostics);
+			}
+		});
+	}
+
+	/**
+	 * Reads the sale items appended to the given file since {@code checkpoint},
+	 * adds each one to its sale and records it in {@code salesItemMap}. A
+	 * malformed record, or one whose sale is not loaded or whose item code is
+	 * unknown or does not fit the record, is rejected into {@code diagnostics}.
+	 *
+	 * @param filePath, checkpoint, itemMap, saleMap, personMap, salesItemMap,
+	 *                  diagnostics
+	 * @return checkpoint
+	 */
+	public static FileCheckpoint loadSalesItem(String filePath, FileCheckpoint checkpoint, Map<String, Item> itemMap,
+			Map<String, Sale> saleMap, Map<String, Person> personMap, Map<String, Item> salesItemMap,
+			LoadDiagnostics diagnostics) {
+		return loadSalesItem(filePath, checkpoint, new SaleItemResolver(itemMap), saleMap, personMap, salesItemMap,
+				diagnostics);
+	}
+
+	/**
+	 * Same as above, with a resolver the caller keeps across calls so the item
+	 * catalog is not re-indexed every time.
+	 *
+	 * @param filePath, checkpoint, resolver, saleMap, personMap, salesItemMap,
+	 *                  diagnostics
+	 * @return checkpoint
+	 */
+	public static FileCheckpoint loadSalesItem(String filePath, FileCheckpoint checkpoint, SaleItemResolver resolver,
+			Map<String, Sale> saleMap, Map<String, Person> personMap, Map<String, Item> salesItemMap,
+			LoadDiagnostics diagnostics) {
+		return readAppended(filePath, checkpoint, "sale item", diagnostics, (csv, recordNumber) -> {
+			int[] tokens = CsvDataLoader.nonEmptyFields(csv);
+			String saleCode = csv.getString(tokens[0]);
+			if (tokens.length > 1) {
+				Sale sale = saleMap.get(saleCode);
+				if (sale == null) {
+					diagnostics.reject(filePath, recordNumber, "Unknown sale", saleCode);
+					return;
+				}
+				Item a = resolver.resolve(csv, tokens, personMap);
+				if (a == null) {
+					diagnostics.reject(filePath, recordNumber, "Unknown item " + csv.getString(tokens[1]), saleCode);
+					return;
+				}
+				salesItemMap.put(saleCode, a);
+				sale.addSale(a);
+			}
+		});
+	}
+
+	/**
+	 * Feeds every complete record after {@code checkpoint} to {@code handler},
+	 * skipping the header on a first read, and returns the new checkpoint. If
+	 * the file's size and modification time are unchanged the old checkpoint is
+	 * returned without reading anything. A record the handler throws on is
+	 * rejected as a malformed or unloadable {@code what}; the handler must not
+	 * have changed anything for it before throwing.
+	 *
+	 * @throws IllegalStateException if the file is shorter than the checkpoint
+	 *                               or the line before it has changed, i.e. the
+	 *                               file was rewritten rather than appended to.
+	 *                               It must then be reloaded from scratch.
+	 */
+	private static FileCheckpoint readAppended(String filePath, FileCheckpoint checkpoint, String what,
+			LoadDiagnostics diagnostics, RecordHandler handler) {
+		if (filePath == null) {
+			return null;
+		}
+
+		Path path = Paths.get(filePath);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long lastModified = Files.getLastModifiedTime(path).toMillis();
+			long start = 0;
+			long records = 0;
+			if (checkpoint != null) {
+				if (size == checkpoint.getSize() && lastModified == checkpoint.getLastModified()) {
+					return checkpoint;
+				}
+				if (size < checkpoint.getOffset()
+						|| lastLineHash(channel, checkpoint.getOffset()) != checkpoint.getLastLineHash()) {
+					throw new IllegalStateException("File was rewritten since its checkpoint: " + filePath);
+				}
+				start = checkpoint.getOffset();
+				records = checkpoint.getRecordCount();
+			}
+
+			long end = lastLineEnd(channel, start, size);
+			if (end > start) {
+				channel.position(start);
+				InputStream in = new LimitedInputStream(Channels.newInputStream(channel), end - start);
+				CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+				if (start == 0) {
+					csv.nextRecord();
+				}
+				while (csv.nextRecord()) {
+					long recordNumber = records + csv.getRecordNumber();
+					try {
+						handler.handle(csv, recordNumber);
+					} catch (IndexOutOfBoundsException ioob) {
+						diagnostics.reject(filePath, recordNumber, "Malformed " + what, keyOf(csv));
+					} catch (RuntimeException e) {
+						diagnostics.reject(filePath, recordNumber, "Could not load " + what + ": " + e.getMessage(),
+								keyOf(csv));
+					}
+				}
+				records += csv.getRecordNumber();
+			}
+			return new FileCheckpoint(filePath, end, lastLineHash(channel, end), records, size, lastModified);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Returns the record's first field, its sale code, or null if it is empty.
+	 */
+	private static String keyOf(CsvRecord csv) {
+		return (csv.getFieldCount() == 0 || csv.isEmpty(0)) ? null : csv.getString(0);
+	}
+
+	/**
+	 * Returns the offset just past the last LF in {@code [start, size)}, or
+	 * {@code start} if there is none.
+	 */
+	private static long lastLineEnd(FileChannel channel, long start, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long position = size;
+		while (position > start) {
+			int length = (int) Math.min(SCAN_BUFFER_SIZE, position - start);
+			position -= length;
+			buffer.clear();
+			buffer.limit(length);
+			readFully(channel, buffer, position);
+			for (int i = length - 1; i >= 0; i--) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+		}
+		return start;
+	}
+
+	/**
+	 * Returns the CRC-32 of the line that ends just before {@code end},
+	 * including its line break, or 0 if {@code end} is 0.
+	 */
+	private static long lastLineHash(FileChannel channel, long end) throws IOException {
+		if (end == 0) {
+			return 0;
+		}
+		long lineStart = lastLineEnd(channel, 0, end - 1);
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		for (long position = lineStart; position < end;) {
+			int length = (int) Math.min(SCAN_BUFFER_SIZE, end - position);
+			buffer.clear();
+			buffer.limit(length);
+			readFully(channel, buffer, position);
+			buffer.flip();
+			crc.update(buffer);
+			position += length;
+		}
+		return crc.getValue();
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position + buffer.position());
+			if (n < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+		}
+	}
+
+	/**
+	 * Reads at most {@code remaining} bytes from another stream.
+	 */
+	private static class LimitedInputStream extends InputStream {
+
+		private final InputStream in;
+		private long remaining;
+
+		private LimitedInputStream(InputStream in, long remaining) {
+			this.in = in;
+			this.remaining = remaining;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (this.remaining == 0) {
+				return -1;
+			}
+			int b = this.in.read();
+			if (b >= 0) {
+				this.remaining--;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (this.remaining == 0) {
+				return -1;
+			}
+			int n = this.in.read(b, off, (int) Math.min(len, this.remaining));
+			if (n > 0) {
+				this.remaining -= n;
+			}
+			return n;
+		}
+	}
+
+}
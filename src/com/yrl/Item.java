@@ -1,41 +1,71 @@
 package com.yrl;
 
 /**
- * This class models the item: code and name.
+ * This class models the item: its shared catalog definition (code, name and
+ * unit price) and, in subclasses, the quantities of one line.
  */
 public abstract class Item implements Comparable<Item>{
 
-	private String code;
-	private String name;
+	/**
+	 * Transient so reflective exports skip the flyweight; {@link ConvertData}
+	 * writes the code, name and price as flat fields instead.
+	 */
+	private final transient ItemDefinition definition;
 	
-	public Item(String code, String name) {
+	public Item(ItemDefinition definition) {
 		super();
-		this.code = code;
-		this.name = name;
+		this.definition = definition;
+	}
+	
+	public ItemDefinition getDefinition() {
+		return definition;
 	}
 	
 	public String getCode() {
-		return code;
+		return definition.getCode();
 	}
 	
 	public String getName() {
-		return name;
+		return definition.getName();
+	}
+	
+	/**
+	 * This method gets the total values before tax, in cents. 
+	 */
+	public abstract long getSubTotalCents();
+	
+	/**
+	 * This method gets the tax, in cents. 
+	 */
+	public abstract long getTaxesCents();
+	
+	/**
+	 * This method gets the total values after tax, in cents. 
+	 */
+	public long getGrandTotalCents() {
+		return this.getSubTotalCents() + this.getTaxesCents();
 	}
 	
 	/**
 	 * This method gets the total values before tax. 
 	 */
-	public abstract double getSubTotal();
+	public double getSubTotal() {
+		return Money.toDollars(this.getSubTotalCents());
+	}
 	
 	/**
 	 * This method gets the tax. 
 	 */
-	public abstract double getTaxes();
+	public double getTaxes() {
+		return Money.toDollars(this.getTaxesCents());
+	}
 	
 	/**
 	 * This method gets the total values after tax. 
 	 */
-	public abstract double getGrandTotal();
+	public double getGrandTotal() {
+		return Money.toDollars(this.getGrandTotalCents());
+	}
 	
 	@Override
 	public int compareTo(Item other) {
@@ -0,0 +1,42 @@
+package com.yrl;
+
+/**
+ * The catalog data of an item: its code, name and unit price in cents (the
+ * base price of a product, the price per GB, per period or per hour). One
+ * definition is shared by the catalog entry and by every sale line of that
+ * item, so a line carries only its own quantities.
+ */
+public final class ItemDefinition {
+
+	private final String code;
+	private final String name;
+	private final long priceCents;
+
+	public ItemDefinition(String code, String name, long priceCents) {
+		this.code = code;
+		this.name = name;
+		this.priceCents = priceCents;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getPriceCents() {
+		return priceCents;
+	}
+
+	public double getPrice() {
+		return Money.toDollars(this.priceCents);
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + code + ")";
+	}
+
+}
@@ -8,7 +8,7 @@ import java.time.Period;
  */
 public class Lease extends Product {
 
-	private double markup = 1.5;
+	static final long MARKUP_PERCENT = 150;
 	private LocalDate startDate;
 	private LocalDate endDate;
 	
@@ -18,6 +18,12 @@ public class Lease extends Product {
 		this.endDate = endDate;
 	}
 
+	public Lease(ItemDefinition definition, LocalDate startDate, LocalDate endDate) {
+		super(definition);
+		this.startDate = startDate;
+		this.endDate = endDate;
+	}
+
 	public String getStartDate() {
 		return this.startDate.toString();
 	}
@@ -42,27 +48,34 @@ public class Lease extends Product {
     
 	/**
 	 * This method gets the monthly total values before tax based on a 50% mark up. 
+	 * A lease shorter than a month is billed as one month.
 	 */
     @Override
-	public double getSubTotal() {
-    	double subTotal = this.getBasePrice() * markup / this.getTime();
-		return Math.round(subTotal * 100) / 100.0;
+	public long getSubTotalCents() {
+    	return subTotalCents(this.getBasePriceCents(), this.getTime());
 	}
     
 	/**
 	 * This method gets the tax. 
 	 */
     @Override 
-    public double getTaxes() {
-    	return 0.0;
+    public long getTaxesCents() {
+    	return taxCents(this.getSubTotalCents());
     }
-    
+
+	/**
+	 * Returns the monthly subtotal of a lease of {@code months} months at the
+	 * given base price.
+	 */
+	static long subTotalCents(long basePriceCents, int months) {
+		return Money.multiply(basePriceCents, MARKUP_PERCENT, 100L * Math.max(months, 1));
+	}
+
 	/**
-	 * This method gets the total values after tax. 
+	 * Leases are not taxed.
 	 */
-	@Override
-	public double getGrandTotal() {
-		return this.getSubTotal() + this.getTaxes();
+	static long taxCents(long subTotalCents) {
+		return 0;
 	}
 
 }
@@ -0,0 +1,191 @@
+package com.yrl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of catalog item and sale line, in one place. Each kind knows the
+ * class it is modeled by, the quantity a line of it is billed for, and how to
+ * price such a line from a unit price in cents. Its ordinal is the one-byte
+ * code it is stored under in {@link Snapshot} files and {@link SaleLineStore}
+ * columns. As in {@link SaleItemResolver}, an item's kind is found with a hash
+ * lookup on its class rather than a chain of type tests.
+ */
+public enum LineType {
+
+	PRODUCT(Product.class) {
+		@Override
+		public double quantityOf(Item item) {
+			return 0;
+		}
+
+		@Override
+		public long subTotalCents(long unitPriceCents, double quantity) {
+			return 0;
+		}
+
+		@Override
+		public long taxCents(long subTotalCents) {
+			return 0;
+		}
+	},
+	PURCHASE(Purchase.class) {
+		@Override
+		public double quantityOf(Item item) {
+			return 1;
+		}
+
+		@Override
+		public long subTotalCents(long unitPriceCents, double quantity) {
+			return Purchase.subTotalCents(unitPriceCents);
+		}
+
+		@Override
+		public long taxCents(long subTotalCents) {
+			return Purchase.taxCents(subTotalCents);
+		}
+	},
+	LEASE(Lease.class) {
+		@Override
+		public double quantityOf(Item item) {
+			return ((Lease) item).getTime();
+		}
+
+		@Override
+		public long subTotalCents(long unitPriceCents, double quantity) {
+			return Lease.subTotalCents(unitPriceCents, (int) quantity);
+		}
+
+		@Override
+		public long taxCents(long subTotalCents) {
+			return Lease.taxCents(subTotalCents);
+		}
+	},
+	DATA(Data.class) {
+		@Override
+		public double quantityOf(Item item) {
+			return ((Data) item).getNumGBs();
+		}
+
+		@Override
+		public long subTotalCents(long unitPriceCents, double quantity) {
+			return Data.subTotalCents(unitPriceCents, quantity);
+		}
+
+		@Override
+		public long taxCents(long subTotalCents) {
+			return Data.taxCents(subTotalCents);
+		}
+	},
+	VOICE(Voice.class) {
+		@Override
+		public double quantityOf(Item item) {
+			return ((Voice) item).getNumDays();
+		}
+
+		@Override
+		public long subTotalCents(long unitPriceCents, double quantity) {
+			return Voice.subTotalCents(unitPriceCents, (int) quantity);
+		}
+
+		@Override
+		public long taxCents(long subTotalCents) {
+			return Voice.taxCents(subTotalCents);
+		}
+	},
+	SERVICE(Service.class) {
+		@Override
+		public double quantityOf(Item item) {
+			return ((Service) item).getNumHours();
+		}
+
+		@Override
+		public long subTotalCents(long unitPriceCents, double quantity) {
+			return Service.subTotalCents(unitPriceCents, quantity);
+		}
+
+		@Override
+		public long taxCents(long subTotalCents) {
+			return Service.taxCents(subTotalCents);
+		}
+	};
+
+	private static final LineType[] VALUES = values();
+	private static final Map<Class<?>, LineType> BY_CLASS = new HashMap<>();
+	static {
+		for (LineType type : VALUES) {
+			BY_CLASS.put(type.type, type);
+		}
+	}
+
+	private final Class<? extends Item> type;
+
+	private LineType(Class<? extends Item> type) {
+		this.type = type;
+	}
+
+	/**
+	 * Returns the quantity {@code item}, which must be of this kind, is billed
+	 * for: hours, GBs, days, months of a lease, or 1 for a purchase.
+	 *
+	 * @param item
+	 * @return quantity
+	 */
+	public abstract double quantityOf(Item item);
+
+	/**
+	 * Returns the subtotal of a line of this kind for {@code quantity} units at
+	 * {@code unitPriceCents}.
+	 *
+	 * @param unitPriceCents, quantity
+	 * @return cents
+	 */
+	public abstract long subTotalCents(long unitPriceCents, double quantity);
+
+	/**
+	 * Returns the tax on a line of this kind with the given subtotal.
+	 *
+	 * @param subTotalCents
+	 * @return cents
+	 */
+	public abstract long taxCents(long subTotalCents);
+
+	public byte code() {
+		return (byte) this.ordinal();
+	}
+
+	/**
+	 * Returns the kind stored under {@code code}.
+	 *
+	 * @param code
+	 * @return type
+	 */
+	public static LineType fromCode(int code) {
+		if (code < 0 || code >= VALUES.length) {
+			throw new IllegalArgumentException("Unknown item type code: " + code);
+		}
+		return VALUES[code];
+	}
+
+	/**
+	 * Returns the kind of {@code item}: that of its class, or of its nearest
+	 * superclass that has one.
+	 *
+	 * @param item
+	 * @return type
+	 */
+	public static LineType of(Item item) {
+		for (Class<?> c = item.getClass(); c != null; c = c.getSuperclass()) {
+			LineType type = BY_CLASS.get(c);
+			if (type != null) {
+				return type;
+			}
+		}
+		throw new IllegalArgumentException("Unknown item type: " + item.getClass().getName());
+	}
+
+	public static int count() {
+		return VALUES.length;
+	}
+
+}
@@ -1,7 +1,9 @@
 package com.yrl;
 
+import java.util.ConcurrentModificationException;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
 
 /**
@@ -10,56 +12,57 @@ import java.util.NoSuchElementException;
 public class LinkedList<T> implements Iterable<T> {
 
 	private Node<T> head;
+	private Node<T> tail;
 	private int size;
+	private int modCount;
 	private Comparator<T> comparator;
 
 	public LinkedList() {
 		super();
 		this.head = null;
+		this.tail = null;
 		this.size = 0;
 	}
 
 	public LinkedList(Comparator<T> c) {
 		this.comparator = c;
 		this.head = null;
+		this.tail = null;
 		this.size = 0;
 	}
 
 	/**
-	 * Add the given value {@code x} to the end of the list.
+	 * Add the given value {@code x} to the end of the list, or at its sorted
+	 * position if this list was created with a comparator.
 	 * 
 	 * @param x
 	 */
 	public void add(T x) {
-		Node<T> newNode = new Node<>(x);
 		if (this.isEmpty()) {
-			this.head = newNode;
-			this.size++;
+			this.linkLast(x);
 			return;
-		} else {
-			if (comparator != null) {
-				Node<T> curr = this.head;
-				Node<T> prev = null;
-				while (curr != null && comparator.compare(x, curr.getElement()) > 0) {
-					prev = curr;
-					curr = curr.getNext();
-				}
-				if (prev == null) {
-					newNode.setNext(this.head);
-					this.head = newNode;
-				} else {
-					newNode.setNext(curr);
-					prev.setNext(newNode);
-				}
-			} else {
-				Node<T> curr = this.head;
-				while (curr.getNext() != null) {
-					curr = curr.getNext();
-				}
-				curr.setNext(newNode);
-			}
 		}
-		this.size++;
+		if (comparator == null || comparator.compare(x, this.tail.getElement()) > 0) {
+			this.linkLast(x);
+			return;
+		}
+		Node<T> curr = this.head;
+		while (curr != null && comparator.compare(x, curr.getElement()) > 0) {
+			curr = curr.getNext();
+		}
+		this.linkBefore(x, curr);
+	}
+
+	/**
+	 * Add every value in {@code values} in iteration order. Unsorted lists append
+	 * each value at the tail in constant time.
+	 * 
+	 * @param values
+	 */
+	public void addAll(Iterable<T> values) {
+		for (T x : values) {
+			this.add(x);
+		}
 	}
 
 	/**
@@ -71,16 +74,11 @@ public class LinkedList<T> implements Iterable<T> {
 		if (index < 0 || index > this.size) {
 			throw new IllegalArgumentException("Invalid index: " + index);
 		}
-		if (this.isEmpty()) {
-			this.add(x);
+		if (index == this.size) {
+			this.linkLast(x);
 			return;
 		}
-		Node<T> newNode = new Node<>(x);
-		Node<T> previous = this.getNode(index - 1);
-		Node<T> indexNode = previous.getNext();
-		previous.setNext(newNode);
-		newNode.setNext(indexNode);
-		this.size++;
+		this.linkBefore(x, this.getNode(index));
 	}
 
 	/**
@@ -101,16 +99,8 @@ public class LinkedList<T> implements Iterable<T> {
 	 */
 	public T remove(int index) {
 		this.boundsCheck(index);
-		if (index == 0) {
-			Node<T> oldHead = this.head;
-			this.head = this.head.getNext();
-			this.size--;
-			return oldHead.getElement();
-		}
-		Node<T> previous = this.getNode(index - 1);
-		Node<T> curr = previous.getNext();
-		previous.setNext(curr.getNext());
-		this.size--;
+		Node<T> curr = this.getNode(index);
+		this.unlink(curr);
 		return curr.getElement();
 	}
 
@@ -124,6 +114,74 @@ public class LinkedList<T> implements Iterable<T> {
 		return this.getNode(index).replaceElement(x);
 	}
 
+	/**
+	 * Links a new node holding {@code x} after the current tail.
+	 * 
+	 * @param x
+	 */
+	private void linkLast(T x) {
+		Node<T> newNode = new Node<>(x);
+		if (this.tail == null) {
+			this.head = newNode;
+		} else {
+			newNode.setPrevious(this.tail);
+			this.tail.setNext(newNode);
+		}
+		this.tail = newNode;
+		this.size++;
+		this.modCount++;
+	}
+
+	/**
+	 * Links a new node holding {@code x} in front of {@code succ}. A null
+	 * {@code succ} appends to the tail.
+	 * 
+	 * @param x
+	 * @param succ
+	 */
+	private void linkBefore(T x, Node<T> succ) {
+		if (succ == null) {
+			this.linkLast(x);
+			return;
+		}
+		Node<T> newNode = new Node<>(x);
+		Node<T> pred = succ.getPrevious();
+		newNode.setNext(succ);
+		newNode.setPrevious(pred);
+		succ.setPrevious(newNode);
+		if (pred == null) {
+			this.head = newNode;
+		} else {
+			pred.setNext(newNode);
+		}
+		this.size++;
+		this.modCount++;
+	}
+
+	/**
+	 * Unlinks the given node {@code node} from the list.
+	 * 
+	 * @param node
+	 */
+	private void unlink(Node<T> node) {
+		Node<T> pred = node.getPrevious();
+		Node<T> succ = node.getNext();
+		if (pred == null) {
+			this.head = succ;
+		} else {
+			pred.setNext(succ);
+		}
+		if (succ == null) {
+			this.tail = pred;
+		} else {
+			succ.setPrevious(pred);
+		}
+		node.setNext(null);
+		node.setPrevious(null);
+		this.size--;
+		this.modCount++;
+	}
+
 	/**
 	 * Check the validity of the bounds by {@code index}.
 	 * 
@@ -149,7 +207,10 @@ public class LinkedList<T> implements Iterable<T> {
 	 * This function clears out the contents of the list, making it an empty list.
 	 */
 	public void clear() {
+		this.head = null;
+		this.tail = null;
 		this.size = 0;
+		this.modCount++;
 	}
 
 	/**
@@ -178,12 +239,20 @@ public class LinkedList<T> implements Iterable<T> {
 	}
 
 	/**
-	 * Returns the node {@code Node} at the given index {@code index}.
+	 * Returns the node {@code Node} at the given index {@code index}, walking
+	 * from whichever end of the list is closer.
 	 * 
 	 * @param index
 	 * @return
 	 */
 	public Node<T> getNode(int index) {
+		if (index >= this.size / 2 && index < this.size) {
+			Node<T> currNode = this.tail;
+			for (int i = this.size - 1; i > index; i--) {
+				currNode = currNode.getPrevious();
+			}
+			return currNode;
+		}
 		Node<T> currNode = this.head;
 		for (int i = 0; i < index; i++) {
 			currNode = currNode.getNext();
@@ -192,38 +261,154 @@ public class LinkedList<T> implements Iterable<T> {
 	}
 
 	/**
-	 * This is the iterator in order to implement the enhanced for loop.
+	 * This is the iterator in order to implement the enhanced for loop. It walks
+	 * the node links directly and fails fast if the list is structurally modified
+	 * outside of the iterator.
 	 * @return x
 	 */
 	@Override
 	public Iterator<T> iterator() {
-		Iterator<T> x = new Iterator<T>() {
+		return new ListItr(0);
+	}
+
+	/**
+	 * Returns a list iterator positioned at the start of the list.
+	 * 
+	 * @return
+	 */
+	public ListIterator<T> listIterator() {
+		return new ListItr(0);
+	}
 
-			private int currIndex;
+	/**
+	 * Returns a list iterator positioned before the given index {@code index}.
+	 * 
+	 * @param index
+	 * @return
+	 */
+	public ListIterator<T> listIterator(int index) {
+		if (index < 0 || index > this.size) {
+			throw new IllegalArgumentException("Invalid index: " + index);
+		}
+		return new ListItr(index);
+	}
+
+	/**
+	 * A cursor over the node chain. {@code next} is the node returned by the
+	 * following call to {@link #next()}, {@code lastReturned} the node affected by
+	 * {@link #remove()} and {@link #set(Object)}.
+	 */
+	private class ListItr implements ListIterator<T> {
+
+		private Node<T> next;
+		private Node<T> lastReturned;
+		private int nextIndex;
+		private int expectedModCount;
+
+		private ListItr(int index) {
+			this.next = (index == size) ? null : getNode(index);
+			this.nextIndex = index;
+			this.expectedModCount = modCount;
+		}
 
-			@Override
-			public boolean hasNext() {
-				if (currIndex > size()) {
-					return false;
-				} else {
-					return true;
-				}
+		@Override
+		public boolean hasNext() {
+			return this.nextIndex < size;
+		}
+
+		@Override
+		public T next() {
+			this.checkForComodification();
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			this.lastReturned = this.next;
+			this.next = this.next.getNext();
+			this.nextIndex++;
+			return this.lastReturned.getElement();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return this.nextIndex > 0;
+		}
+
+		@Override
+		public T previous() {
+			this.checkForComodification();
+			if (!this.hasPrevious()) {
+				throw new NoSuchElementException();
+			}
+			this.next = (this.next == null) ? tail : this.next.getPrevious();
+			this.lastReturned = this.next;
+			this.nextIndex--;
+			return this.lastReturned.getElement();
+		}
+
+		@Override
+		public int nextIndex() {
+			return this.nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			return this.nextIndex - 1;
+		}
+
+		@Override
+		public void remove() {
+			this.checkForComodification();
+			if (this.lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			Node<T> lastNext = this.lastReturned.getNext();
+			unlink(this.lastReturned);
+			if (this.next == this.lastReturned) {
+				this.next = lastNext;
+			} else {
+				this.nextIndex--;
 			}
+			this.lastReturned = null;
+			this.expectedModCount = modCount;
+		}
 
-			@Override
-			public T next() {
-				if (!hasNext()) {
-					throw new NoSuchElementException();
-				}
-				return get(currIndex + 1);
+		/**
+		 * Replaces the element last returned. Not supported on sorted lists, since
+		 * the new element could belong at another position.
+		 */
+		@Override
+		public void set(T x) {
+			this.checkForComodification();
+			if (comparator != null) {
+				throw new UnsupportedOperationException();
+			}
+			if (this.lastReturned == null) {
+				throw new IllegalStateException();
 			}
+			this.lastReturned.setElement(x);
+		}
 
-			@Override
-			public void remove() {
+		/**
+		 * Inserts {@code x} before the cursor. Not supported on sorted lists, since
+		 * the position would bypass the comparator.
+		 */
+		@Override
+		public void add(T x) {
+			this.checkForComodification();
+			if (comparator != null) {
 				throw new UnsupportedOperationException();
 			}
-		};
-		return x;
+			linkBefore(x, this.next);
+			this.lastReturned = null;
+			this.nextIndex++;
+			this.expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != this.expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
 	}
 
 }
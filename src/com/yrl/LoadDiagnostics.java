@@ -0,0 +1,130 @@
+package com.yrl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Collects the records a loader rejected, such as duplicate sales, so callers
+ * can see what was dropped and why. Every reject is counted, but only the first
+ * {@code maxKept} are kept in full, so a bad file cannot exhaust memory.
+ */
+public class LoadDiagnostics {
+
+	private static final Logger LOGGER = LogManager.getLogger(LoadDiagnostics.class);
+
+	private static final int DEFAULT_MAX_KEPT = 1000;
+
+	/**
+	 * One rejected record.
+	 */
+	public static class Reject {
+
+		private final String source;
+		private final long recordNumber;
+		private final String reason;
+		private final String key;
+
+		public Reject(String source, long recordNumber, String reason, String key) {
+			this.source = source;
+			this.recordNumber = recordNumber;
+			this.reason = reason;
+			this.key = key;
+		}
+
+		public String getSource() {
+			return source;
+		}
+
+		/**
+		 * Returns the 1-based record number in the source, counting the header.
+		 *
+		 * @return
+		 */
+		public long getRecordNumber() {
+			return recordNumber;
+		}
+
+		public String getReason() {
+			return reason;
+		}
+
+		public String getKey() {
+			return key;
+		}
+
+		@Override
+		public String toString() {
+			if (key == null) {
+				return source + ":" + recordNumber + ": " + reason;
+			}
+			return source + ":" + recordNumber + ": " + reason + " (" + key + ")";
+		}
+	}
+
+	private final int maxKept;
+	private final List<Reject> rejects;
+	private long rejectCount;
+
+	public LoadDiagnostics() {
+		this(DEFAULT_MAX_KEPT);
+	}
+
+	public LoadDiagnostics(int maxKept) {
+		this.maxKept = maxKept;
+		this.rejects = new ArrayList<>();
+		this.rejectCount = 0;
+	}
+
+	/**
+	 * Records that record {@code recordNumber} of {@code source} was rejected
+	 * for {@code reason}; {@code key} identifies it, e.g. its sale code.
+	 *
+	 * @param source, recordNumber, reason, key
+	 */
+	public void reject(String source, long recordNumber, String reason, String key) {
+		if (this.rejects.size() < this.maxKept) {
+			this.rejects.add(new Reject(source, recordNumber, reason, key));
+		}
+		this.rejectCount++;
+	}
+
+	/**
+	 * Returns the rejects kept, in the order they were reported.
+	 *
+	 * @return
+	 */
+	public List<Reject> getRejects() {
+		return Collections.unmodifiableList(this.rejects);
+	}
+
+	/**
+	 * Returns the number of rejects reported, including any not kept.
+	 *
+	 * @return
+	 */
+	public long getRejectCount() {
+		return this.rejectCount;
+	}
+
+	public boolean hasRejects() {
+		return this.rejectCount > 0;
+	}
+
+	/**
+	 * Logs every kept reject as a warning, and how many more were dropped, so
+	 * they stay out of report output on stdout.
+	 */
+	public void printRejects() {
+		for (Reject reject : this.rejects) {
+			LOGGER.warn(reject);
+		}
+		if (this.rejectCount > this.rejects.size()) {
+			LOGGER.warn("... and " + (this.rejectCount - this.rejects.size()) + " more rejects");
+		}
+	}
+
+}
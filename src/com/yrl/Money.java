@@ -0,0 +1,70 @@
+package com.yrl;
+
+/**
+ * Fixed-point helpers for money amounts held as a {@code long} count of cents.
+ * All rounding is half up and done in integer arithmetic, so sums and rates
+ * are exact and never box.
+ */
+public final class Money {
+
+	private Money() {
+	}
+
+	/**
+	 * Converts a dollar amount to cents, rounding to the nearest cent.
+	 * 
+	 * @param amount
+	 * @return cents
+	 */
+	public static long toCents(double amount) {
+		return Math.round(amount * 100);
+	}
+
+	/**
+	 * Converts cents to a dollar amount.
+	 * 
+	 * @param cents
+	 * @return amount
+	 */
+	public static double toDollars(long cents) {
+		return cents / 100.0;
+	}
+
+	/**
+	 * Returns {@code cents * numerator / denominator}, rounded half up to the
+	 * nearest cent.
+	 * 
+	 * @param cents
+	 * @param numerator
+	 * @param denominator
+	 * @return cents
+	 */
+	public static long multiply(long cents, long numerator, long denominator) {
+		return Math.floorDiv(2 * cents * numerator + denominator, 2 * denominator);
+	}
+
+	/**
+	 * Returns {@code cents} scaled by a fractional {@code quantity} such as a
+	 * number of GBs or hours, rounded to the nearest cent.
+	 * 
+	 * @param cents
+	 * @param quantity
+	 * @return cents
+	 */
+	public static long multiply(long cents, double quantity) {
+		return Math.round(cents * quantity);
+	}
+
+	/**
+	 * Returns the tax on {@code cents} at a rate given in tenths of a percent,
+	 * e.g. 65 for 6.5%.
+	 * 
+	 * @param cents
+	 * @param ratePerMille
+	 * @return cents
+	 */
+	public static long tax(long cents, long ratePerMille) {
+		return multiply(cents, ratePerMille, 1000);
+	}
+
+}
@@ -1,16 +1,18 @@
 package com.yrl;
 
 /**
- * A node to represent a link in a linked list.
+ * A node to represent a link in a doubly linked list.
  */
 public class Node<T> {
 
 	private T element;
 	private Node<T> next;
+	private Node<T> previous;
 	
 	public Node(T element) {
 		this.element = element;
 		this.next = null;
+		this.previous = null;
 	}
 	
 	public T getElement() {
@@ -25,6 +27,14 @@ public class Node<T> {
 		this.next = next;
 	}
 	
+	public Node<T> getPrevious() {
+		return this.previous;
+	}
+	
+	public void setPrevious(Node<T> previous) {
+		this.previous = previous;
+	}
+	
 	public void setElement(T element) {
 		this.element = element;
 	}
@@ -0,0 +1,439 @@
+package com.yrl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the large CSV files (persons, sales and sale items) on several
+ * threads. The file is memory-mapped and cut at line breaks into chunks, each
+ * chunk is parsed by its own {@link CsvReader} on a fork/join worker into a
+ * partial result, and the partial results are merged on the calling thread in
+ * file order. The merged maps are the same as the ones {@link CsvDataLoader}
+ * builds, and sales and items are attached to their stores and sales in the
+ * same order.
+ *
+ * Chunks are cut at LF bytes, so a quoted field must not contain a line break,
+ * and the header must fit on one line.
+ */
+public class ParallelCsvLoader {
+
+	/**
+	 * Chunks smaller than this are not worth a task of their own.
+	 */
+	private static final long MIN_CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * A single mapping must stay under 2 GB; larger files get more chunks.
+	 */
+	private static final long MAX_CHUNK_SIZE = 1 << 30;
+
+	private static final int SCAN_BUFFER_SIZE = 1 << 12;
+
+	/**
+	 * Parses one chunk of records into a partial result.
+	 */
+	private interface ChunkParser<R> {
+
+		void parse(CsvReader csv, Chunk<R> chunk) throws IOException;
+	}
+
+	/**
+	 * The rows parsed from one chunk, in file order. {@code numRecords} is the
+	 * number of records read from the chunk. {@code aborted} is set when a
+	 * record was too short, in which case the sequential loader would have
+	 * stopped reading there.
+	 */
+	private static final class Chunk<R> {
+
+		private final List<R> rows = new ArrayList<>();
+		private long numRecords;
+		private boolean aborted;
+	}
+
+	/**
+	 * One sales record and its record number within its chunk.
+	 */
+	private static final class SaleRecord {
+
+		private final Sale sale;
+		private final long recordNumber;
+
+		private SaleRecord(Sale sale, long recordNumber) {
+			this.sale = sale;
+			this.recordNumber = recordNumber;
+		}
+	}
+
+	/**
+	 * One sale item record: the sale code and the line item it describes.
+	 */
+	private static final class SaleLine {
+
+		private final String saleCode;
+		private final Item item;
+
+		private SaleLine(String saleCode, Item item) {
+			this.saleCode = saleCode;
+			this.item = item;
+		}
+	}
+
+	/**
+	 * Loads up a collection of Persons from the given file using one thread per
+	 * available processor.
+	 *
+	 * @param filePath
+	 * @return personMap
+	 */
+	public static Map<String, Person> loadPersonData(String filePath) {
+		return loadPersonData(filePath, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Loads up a collection of Persons from the given file using
+	 * {@code numThreads} threads.
+	 *
+	 * @param filePath
+	 * @param numThreads
+	 * @return personMap
+	 */
+	public static Map<String, Person> loadPersonData(String filePath, int numThreads) {
+		if (filePath == null) {
+			return null;
+		}
+
+		Map<String, Person> personMap = new HashMap<>();
+		List<Chunk<Person>> chunks = parseChunks(filePath, numThreads, (csv, chunk) -> {
+			StringPool pool = new StringPool();
+			while (csv.nextRecord()) {
+				chunk.rows.add(CsvDataLoader.parsePerson(csv, pool));
+			}
+		});
+		for (Chunk<Person> chunk : chunks) {
+			for (Person person : chunk.rows) {
+				personMap.put(person.getUuid(), person);
+			}
+		}
+		return personMap;
+	}
+
+	/**
+	 * Loads up a collection of Sales from the given file using one thread per
+	 * available processor.
+	 *
+	 * @param filePath, storeMap, personMap
+	 * @return saleMap
+	 */
+	public static Map<String, Sale> loadSaleData(String filePath, Map<String, Store> storeMap,
+			Map<String, Person> personMap) {
+		return loadSaleData(filePath, storeMap, personMap, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Loads up a collection of Sales from the given file using
+	 * {@code numThreads} threads. Duplicate sale codes are printed.
+	 *
+	 * @param filePath, storeMap, personMap, numThreads
+	 * @return saleMap
+	 */
+	public static Map<String, Sale> loadSaleData(String filePath, Map<String, Store> storeMap,
+			Map<String, Person> personMap, int numThreads) {
+		LoadDiagnostics diagnostics = new LoadDiagnostics();
+		Map<String, Sale> saleMap = loadSaleData(filePath, storeMap, personMap, numThreads, diagnostics);
+		diagnostics.printRejects();
+		return saleMap;
+	}
+
+	/**
+	 * Loads up a collection of Sales from the given file using
+	 * {@code numThreads} threads. A sale whose code was already loaded is
+	 * rejected into {@code diagnostics}; the first one in the file wins.
+	 *
+	 * @param filePath, storeMap, personMap, numThreads, diagnostics
+	 * @return saleMap
+	 */
+	public static Map<String, Sale> loadSaleData(String filePath, Map<String, Store> storeMap,
+			Map<String, Person> personMap, int numThreads, LoadDiagnostics diagnostics) {
+		if (filePath == null) {
+			return null;
+		}
+
+		Map<String, Sale> saleMap = new HashMap<>();
+		List<Chunk<SaleRecord>> chunks = parseChunks(filePath, numThreads, (csv, chunk) -> {
+			try {
+				while (csv.nextRecord()) {
+					Sale sale = CsvDataLoader.parseSale(csv, storeMap, personMap);
+					if (sale != null) {
+						chunk.rows.add(new SaleRecord(sale, csv.getRecordNumber()));
+					}
+				}
+			} catch (IndexOutOfBoundsException ioob) {
+				chunk.aborted = true;
+			}
+		});
+		long firstRecord = 1;
+		for (Chunk<SaleRecord> chunk : chunks) {
+			for (SaleRecord record : chunk.rows) {
+				CsvDataLoader.addSale(saleMap, record.sale, filePath, firstRecord + record.recordNumber,
+						diagnostics);
+			}
+			firstRecord += chunk.numRecords;
+			if (chunk.aborted) {
+				System.out.print("Out of bounds in SalesData\n");
+				break;
+			}
+		}
+		return saleMap;
+	}
+
+	/**
+	 * Loads up the sale items from the given file using one thread per available
+	 * processor, adding each one to its sale.
+	 *
+	 * @param filePath, itemMap, saleMap, personMap
+	 * @return salesItemMap
+	 */
+	public static Map<String, Item> loadSalesItem(String filePath, Map<String, Item> itemMap,
+			Map<String, Sale> saleMap, Map<String, Person> personMap) {
+		return loadSalesItem(filePath, itemMap, saleMap, personMap, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Loads up the sale items from the given file using {@code numThreads}
+	 * threads, adding each one to its sale.
+	 *
+	 * @param filePath, itemMap, saleMap, personMap, numThreads
+	 * @return salesItemMap
+	 */
+	public static Map<String, Item> loadSalesItem(String filePath, Map<String, Item> itemMap,
+			Map<String, Sale> saleMap, Map<String, Person> personMap, int numThreads) {
+		if (filePath == null) {
+			return null;
+		}
+
+		Map<String, Item> salesItemMap = new HashMap<>();
+		SaleItemResolver resolver = new SaleItemResolver(itemMap);
+		List<Chunk<SaleLine>> chunks = parseChunks(filePath, numThreads, (csv, chunk) -> {
+			try {
+				while (csv.nextRecord()) {
+					int[] tokens = CsvDataLoader.nonEmptyFields(csv);
+					String saleCode = csv.getString(tokens[0]);
+					if (tokens.length > 1) {
+						Item a = resolver.resolve(csv, tokens, personMap);
+						chunk.rows.add(new SaleLine(saleCode, a));
+					}
+				}
+			} catch (IndexOutOfBoundsException ioob) {
+				chunk.aborted = true;
+			}
+		});
+		for (Chunk<SaleLine> chunk : chunks) {
+			for (SaleLine line : chunk.rows) {
+				if (line.item != null) {
+					salesItemMap.put(line.saleCode, line.item);
+				}
+
+				if (saleMap.containsKey(line.saleCode)) {
+					saleMap.get(line.saleCode).addSale(line.item);
+				} else {
+					System.out.println("Sale not found");
+				}
+			}
+			if (chunk.aborted) {
+				break;
+			}
+		}
+		return salesItemMap;
+	}
+
+	/**
+	 * Maps the file, skips its header line, cuts the rest into chunks at line
+	 * breaks and parses them in parallel. The partial results come back in file
+	 * order.
+	 */
+	private static <R> List<Chunk<R>> parseChunks(String filePath, int numThreads, ChunkParser<R> parser) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("Invalid number of threads: " + numThreads);
+		}
+
+		List<Chunk<R>> chunks = new ArrayList<>();
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			long size = channel.size();
+			long start = skipHeader(channel);
+			if (start < 0) {
+				System.out.print("No data in file");
+				return chunks;
+			}
+
+			long[] bounds = splitAtLines(channel, start, size, numThreads);
+			ForkJoinPool pool = new ForkJoinPool(numThreads);
+			try {
+				List<Future<Chunk<R>>> futures = new ArrayList<>();
+				for (int i = 0; i + 1 < bounds.length; i++) {
+					MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bounds[i],
+							bounds[i + 1] - bounds[i]);
+					futures.add(pool.submit(() -> parseChunk(buffer, parser)));
+				}
+				for (Future<Chunk<R>> future : futures) {
+					chunks.add(future.get());
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		return chunks;
+	}
+
+	private static <R> Chunk<R> parseChunk(ByteBuffer buffer, ChunkParser<R> parser) throws IOException {
+		Chunk<R> chunk = new Chunk<>();
+		try (CsvReader csv = new CsvReader(
+				new InputStreamReader(new ByteBufferInputStream(buffer), StandardCharsets.UTF_8))) {
+			parser.parse(csv, chunk);
+			chunk.numRecords = csv.getRecordNumber();
+		}
+		return chunk;
+	}
+
+	/**
+	 * Returns the offset just past the first non-blank line, or -1 if the file
+	 * holds nothing but blank lines.
+	 */
+	private static long skipHeader(FileChannel channel) throws IOException {
+		long size = channel.size();
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		long position = 0;
+		boolean inHeader = false;
+		while (position < size) {
+			buffer.clear();
+			int n = channel.read(buffer, position);
+			if (n <= 0) {
+				break;
+			}
+			for (int i = 0; i < n; i++) {
+				byte b = buffer.get(i);
+				if (b == '\n') {
+					if (inHeader) {
+						return position + i + 1;
+					}
+				} else if (b != '\r') {
+					inHeader = true;
+				}
+			}
+			position += n;
+		}
+		return inHeader ? size : -1;
+	}
+
+	/**
+	 * Cuts {@code [start, end)} into about {@code numThreads} chunks, moving each
+	 * cut forward to the start of the next line. Returns the chunk boundaries.
+	 */
+	private static long[] splitAtLines(FileChannel channel, long start, long end, int numThreads) throws IOException {
+		long length = end - start;
+		long numChunks = Math.max(1, Math.min(numThreads, length / MIN_CHUNK_SIZE));
+		numChunks = Math.max(numChunks, (length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(start);
+		long previous = start;
+		for (long k = 1; k < numChunks; k++) {
+			long cut = nextLineStart(channel, start + length * k / numChunks, end);
+			if (cut > previous && cut < end) {
+				bounds.add(cut);
+				previous = cut;
+			}
+		}
+		bounds.add(end);
+
+		long[] result = new long[bounds.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = bounds.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the offset just past the first LF at or after {@code position}, or
+	 * {@code end} if there is none.
+	 */
+	private static long nextLineStart(FileChannel channel, long position, long end) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+		while (position < end) {
+			buffer.clear();
+			int n = channel.read(buffer, position);
+			if (n <= 0) {
+				break;
+			}
+			for (int i = 0; i < n; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += n;
+		}
+		return end;
+	}
+
+	/**
+	 * Reads a mapped chunk as a stream of bytes.
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			return this.buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!this.buffer.hasRemaining()) {
+				return -1;
+			}
+			int n = Math.min(len, this.buffer.remaining());
+			this.buffer.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return this.buffer.remaining();
+		}
+	}
+
+}
@@ -5,22 +5,27 @@ package com.yrl;
  */
 public class Product extends Item {
 	
-	private double basePrice;
-
 	public Product(String code, String name, double basePrice) {
-		super(code, name);
-		this.basePrice = basePrice;
+		super(new ItemDefinition(code, name, Money.toCents(basePrice)));
+	}
+
+	public Product(ItemDefinition definition) {
+		super(definition);
 	}
 	
 	public double getBasePrice() {
-		return this.basePrice;
+		return this.getDefinition().getPrice();
+	}
+	
+	public long getBasePriceCents() {
+		return this.getDefinition().getPriceCents();
 	}
 
 	/**
 	 * This method calculates the subTotal of all items in the Product before tax. 
 	 */
 	@Override
-	public double getSubTotal() {
+	public long getSubTotalCents() {
 		return 0;
 	}
 
@@ -28,15 +33,7 @@ public class Product extends Item {
 	 * This method calculates the tax of the product. 
 	 */
 	@Override
-	public double getTaxes() {
-		return 0;
-	}
-
-	/**
-	 * This method calculates the grandTotal of all items in the Product after tax. 
-	 */
-	@Override
-	public double getGrandTotal() {
+	public long getTaxesCents() {
 		return 0;
 	}
 
@@ -5,11 +5,15 @@ package com.yrl;
  */
 public class Purchase extends Product {
 
-	final private double TAX_RATE = .065;
+	static final long TAX_RATE_PER_MILLE = 65;
 	
 	public Purchase(String code, String name, double basePrice) {
 		super(code, name, basePrice);
 	}
+
+	public Purchase(ItemDefinition definition) {
+		super(definition);
+	}
 	
 	@Override
 	public String toString() {
@@ -20,24 +24,30 @@ public class Purchase extends Product {
 	 * This method gets the total values before tax. 
 	 */
 	@Override
-	public double getSubTotal() {
-		return this.getBasePrice();
+	public long getSubTotalCents() {
+		return subTotalCents(this.getBasePriceCents());
 	}
 	
 	/**
 	 * This method gets the tax
 	 */
 	@Override
-	public double getTaxes() {
-		return Math.round(this.getBasePrice() * TAX_RATE * 100) / 100.0;
+	public long getTaxesCents() {
+		return taxCents(this.getSubTotalCents());
 	}
-	
+
 	/**
-	 * This method gets the total values after tax. 
+	 * Returns the subtotal of a purchase at the given base price.
 	 */
-	@Override
-	public double getGrandTotal() {
-		return this.getSubTotal() + this.getTaxes();
+	static long subTotalCents(long basePriceCents) {
+		return basePriceCents;
+	}
+
+	/**
+	 * Returns the tax on a purchase subtotal.
+	 */
+	static long taxCents(long subTotalCents) {
+		return Money.tax(subTotalCents, TAX_RATE_PER_MILLE);
 	}
 	
 }
@@ -1,6 +1,8 @@
 package com.yrl;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.Level;
@@ -56,7 +58,16 @@ public class ReportUtils {
 	}
 	
 	/**
-	 * This method prints the total per store.
+	 * Running totals for one store in the store summary report.
+	 */
+	private static final class StoreTotals {
+		private int numSales;
+		private long totalCents;
+	}
+	
+	/**
+	 * This method prints the total per store. Sales are grouped by store code in
+	 * a single pass, so the report is linear in the number of sales.
 	 * @param storesList, salesList
 	 */
 	public static void printStore(Map<String, Store> storesMap, Map<String, Sale> salesMap) {
@@ -64,6 +75,46 @@ public class ReportUtils {
 			return;
 		}
 		
+		Map<String, StoreTotals> totalsByStore = new HashMap<>(storesMap.size() * 2);
+		for(Sale sale : salesMap.values()) {
+			String storeCode = sale.getStore().getStoreCode();
+			StoreTotals totals = totalsByStore.get(storeCode);
+			if(totals == null) {
+				totals = new StoreTotals();
+				totalsByStore.put(storeCode, totals);
+			}
+			totals.numSales++;
+			totals.totalCents += sale.saleGrandTotalCents();
+		}
+		printStoreTotals(storesMap, totalsByStore);
+	}
+	
+	/**
+	 * This method prints the total per store from the sales each store already
+	 * holds through {@link Store#addSale(Sale)}.
+	 * @param storesMap
+	 */
+	public static void printStore(Map<String, Store> storesMap) {
+		if(storesMap == null) {
+			return;
+		}
+		
+		Map<String, StoreTotals> totalsByStore = new HashMap<>(storesMap.size() * 2);
+		for(Store store : storesMap.values()) {
+			StoreTotals totals = new StoreTotals();
+			for(Sale sale : store.getSales()) {
+				totals.numSales++;
+				totals.totalCents += sale.saleGrandTotalCents();
+			}
+			totalsByStore.put(store.getStoreCode(), totals);
+		}
+		printStoreTotals(storesMap, totalsByStore);
+	}
+	
+	/**
+	 * Prints the store summary report from totals grouped by store code.
+	 */
+	private static void printStoreTotals(Map<String, Store> storesMap, Map<String, StoreTotals> totalsByStore) {
 		LOGGER.debug("DEBUG: Printing store sales summary report");
 		
 		System.out.println("+----------------------------------------------------------------+");
@@ -72,25 +123,18 @@ public class ReportUtils {
 		System.out.println("Store      Manager                        # Sales    Grand Total  ");
 		
 		int totalSales = 0;
-		double overallTotal = 0;
-		int numSales = 0;
-		double totalPerStore = 0;
+		long overallTotalCents = 0;
 		for(Store store : storesMap.values()) {
-			numSales = 0;
-			totalPerStore = 0;
-			for(Sale sale : salesMap.values()) {
-				if(sale.getStore().equals(store)) {
-					totalPerStore += sale.saleGrandTotal();
-					totalSales++;
-					numSales++;
-				}
-			}
-			overallTotal += totalPerStore;
-			System.out.printf("%s     %-31s%-10d $%10.2f\n",store.getStoreCode(),store.getManager().nameToString(),numSales,totalPerStore);
+			StoreTotals totals = totalsByStore.get(store.getStoreCode());
+			int numSales = (totals == null) ? 0 : totals.numSales;
+			long totalPerStoreCents = (totals == null) ? 0 : totals.totalCents;
+			totalSales += numSales;
+			overallTotalCents += totalPerStoreCents;
+			System.out.printf("%s     %-31s%-10d $%10.2f\n",store.getStoreCode(),store.getManager().nameToString(),numSales,Money.toDollars(totalPerStoreCents));
 			
 		}
 		System.out.println("+----------------------------------------------------------------+");
-		System.out.printf("                                          %-11d$%10.2f\n",totalSales,overallTotal);
+		System.out.printf("                                          %-11d$%10.2f\n",totalSales,Money.toDollars(overallTotalCents));
 	}	
 	
 	/**
@@ -145,41 +189,92 @@ public class ReportUtils {
 		ReportUtils.printIndivSale(saleMap);
 	}
 
+	private static final String CUSTOMER_TITLE = "| Sales by Customer                                                                      |";
+	private static final String STORE_TITLE = "| Sales by Store                                                          |";
+
+	/**
+	 * Orders sales by customer last name, then first name.
+	 */
+	private static final Comparator<Sale> CMP_BY_CUSTOMER = new Comparator<Sale>() {
+		
+		public int compare(Sale a, Sale b) {
+			int customerComparison = a.getCustomer().getLastName().compareTo(b.getCustomer().getLastName());
+			if(customerComparison == 0) {
+				return a.getCustomer().getFirstName().compareTo(b.getCustomer().getFirstName());
+			} else {
+				return customerComparison;
+			}
+		}
+	};
+	
+	/**
+	 * Orders sales by grand total, highest first.
+	 */
+	private static final Comparator<Sale> CMP_BY_VALUE = new Comparator<Sale>() {
+		
+		public int compare(Sale a, Sale b) {
+			return Long.compare(b.saleGrandTotalCents(), a.saleGrandTotalCents());
+		}
+	};
+	
+	/**
+	 * Orders sales by salesperson last name, then first name.
+	 */
+	private static final Comparator<Sale> CMP_BY_SALESPERSON = new Comparator<Sale>() {
+		
+		public int compare(Sale a, Sale b) {
+			int salesPersonComparison = a.getSalesperson().getLastName().compareTo(b.getSalesperson().getLastName());
+			if(salesPersonComparison == 0) {
+				return a.getSalesperson().getFirstName().compareTo(b.getSalesperson().getFirstName());
+			} else {
+				return salesPersonComparison;
+			}
+		}
+	};
+	
+	/**
+	 * Orders sales by store code, then by salesperson.
+	 */
+	private static final Comparator<Sale> CMP_BY_STORE = new Comparator<Sale>() {
+		
+		public int compare(Sale a, Sale b) {
+			int storeComparison = a.getStore().getStoreCode().compareTo(b.getStore().getStoreCode()) ;
+			if(storeComparison == 0) {
+				return CMP_BY_SALESPERSON.compare(a, b);
+			} else {
+				return storeComparison;
+			}
+		}
+	};
+
 	/**
 	 * This methods prints the report of sales that compares by customer
 	 * @param <T>
 	 * @param salesList
 	 */
 	public static <T> void printSalesCustomer(LinkedList<Sale> saleList) {
-		System.out.println("+----------------------------------------------------------------------------------------+");
-		System.out.println("| Sales by Customer                                                                      |");
-		System.out.println("+----------------------------------------------------------------------------------------+");
-		System.out.println("Sale       Store      Customer             Salesperson          Total  ");
+		printSalesCustomer(saleList, 0, saleList.size());
+	}
+	
+	/**
+	 * This methods prints one page of the report of sales that compares by customer:
+	 * up to {@code limit} sales starting at rank {@code offset}.
+	 * @param saleList
+	 * @param offset
+	 * @param limit
+	 */
+	public static void printSalesCustomer(LinkedList<Sale> saleList, int offset, int limit) {
+		printSalesHeader(CUSTOMER_TITLE);
 		LOGGER.debug("DEBUG: Printing sales summary by customer report");
 		
-		Comparator<Sale> cmpByCustomer = new Comparator<Sale>() {
-			
-			public int compare(Sale a, Sale b) {
-				int customerComparison = a.getCustomer().getLastName().compareTo(b.getCustomer().getLastName());
-				if(customerComparison == 0) {
-					return a.getCustomer().getFirstName().compareTo(b.getCustomer().getFirstName());
-				} else {
-					return customerComparison;
-				}
+		if(isFullReport(saleList, offset, limit)) {
+			SortedSaleList<Sale> sortedSalesCustomer = new SortedSaleList<Sale>(CMP_BY_CUSTOMER);
+			sortedSalesCustomer.addAll(saleList);
+			for(Sale s : sortedSalesCustomer) {
+				printSaleRow(s, s.saleGrandTotal());
 			}
-		};
-		
-		LinkedList<Sale> salesLinkedListCustomer = new LinkedList<Sale>(cmpByCustomer);
-		for(int i = 0; i < saleList.size(); i++) {
-			Sale sale = saleList.get(i);
-			salesLinkedListCustomer.add(sale);
-		}
-		for(int i = 0; i < salesLinkedListCustomer.size(); i++) {
-			Sale s = salesLinkedListCustomer.get(i);
-			System.out.printf("%-11s%-11s%-21s%-21s$%.2f\n", s.getSaleCode(), s.getStore().getStoreCode(), 
-							       															  s.getCustomer().nameToString(), 
-							       															  s.getSalesperson().nameToString(), 
-							       															  s.saleGrandTotal());
+		} else {
+			printTopSales(saleList, CMP_BY_CUSTOMER, offset, limit);
 		}
 	}
 	
@@ -189,36 +284,28 @@ public class ReportUtils {
 	 * @param salesList
 	 */
 	public static <T> void printSalesValue(LinkedList<Sale> saleList) {
-		System.out.println("+----------------------------------------------------------------------------------------+");
-		System.out.println("| Sales by Total                                                          |");
-		System.out.println("+----------------------------------------------------------------------------------------+");
-		System.out.println("Sale       Store      Customer             Salesperson          Total  ");
+		printSalesValue(saleList, 0, saleList.size());
+	}
+	
+	/**
+	 * This methods prints one page of the report of sales that compares by value:
+	 * up to {@code limit} sales starting at rank {@code offset}.
+	 * @param saleList
+	 * @param offset
+	 * @param limit
+	 */
+	public static void printSalesValue(LinkedList<Sale> saleList, int offset, int limit) {
+		printSalesHeader("| Sales by Total                                                          |");
 		LOGGER.debug("DEBUG: Printing sales summary by value report");
 		
-		Comparator<Sale> cmpByValue = new Comparator<Sale>() {
-			
-			public int compare(Sale a, Sale b) {
-				if(a.saleGrandTotal() < b.saleGrandTotal()) {
-					return 1;
-				} else if(a.saleGrandTotal() > b.saleGrandTotal()) {
-					return -1;
-				} else {
-					return 0;
-				}
+		if(isFullReport(saleList, offset, limit)) {
+			SaleValueIndex salesByValue = new SaleValueIndex(saleList.size());
+			salesByValue.addAll(saleList);
+			for(int i = 0; i < salesByValue.size(); i++) {
+				printSaleRow(salesByValue.get(i), salesByValue.getTotal(i));
 			}
-		};
-		
-		LinkedList<Sale> salesLinkedListValue = new LinkedList<Sale>(cmpByValue);
-		for(int i = 0; i < saleList.size(); i++) {
-			Sale sale = saleList.get(i);
-			salesLinkedListValue.add(sale);
-		}
-		for(int i = 0; i < salesLinkedListValue.size(); i++) {
-			Sale s = salesLinkedListValue.get(i);
-			System.out.printf("%-11s%-11s%-21s%-21s$%.2f\n", s.getSaleCode(), s.getStore().getStoreCode(), 
-							       															  s.getCustomer().nameToString(), 
-							       															  s.getSalesperson().nameToString(), 
-							       															  s.saleGrandTotal());
+		} else {
+			printTopSales(saleList, CMP_BY_VALUE, offset, limit);
 		}
 	}
 	
@@ -228,47 +315,121 @@ public class ReportUtils {
 	 * @param salesList
 	 */
 	public static <T> void printSalesStore(LinkedList<Sale> saleList) {
-		System.out.println("+----------------------------------------------------------------------------------------+");
-		System.out.println("| Sales by Store                                                          |");
-		System.out.println("+----------------------------------------------------------------------------------------+");
-		System.out.println("Sale       Store      Customer             Salesperson          Total  ");
+		printSalesStore(saleList, 0, saleList.size());
+	}
+	
+	/**
+	 * This methods prints one page of the report of sales that compares by store:
+	 * up to {@code limit} sales starting at rank {@code offset}.
+	 * @param saleList
+	 * @param offset
+	 * @param limit
+	 */
+	public static void printSalesStore(LinkedList<Sale> saleList, int offset, int limit) {
+		printSalesHeader(STORE_TITLE);
 		LOGGER.debug("DEBUG: Printing sales summary by value report");
 		
-		Comparator<Sale> cmpBySalesPerson= new Comparator<Sale>() {
-			
-			public int compare(Sale a, Sale b) {
-				int salesPersonComparison = a.getSalesperson().getLastName().compareTo(b.getSalesperson().getLastName());
-				if(salesPersonComparison == 0) {
-					return a.getSalesperson().getFirstName().compareTo(b.getSalesperson().getFirstName());
-				} else {
-					return salesPersonComparison;
-				}
-			}
-		};
-		Comparator<Sale> cmpByStore = new Comparator<Sale>() {
-			
-			public int compare(Sale a, Sale b) {
-				int storeComparison = a.getStore().getStoreCode().compareTo(b.getStore().getStoreCode()) ;
-				if(storeComparison == 0) {
-					return cmpBySalesPerson.compare(a, b);
-				} else {
-					return storeComparison;
-				}
+		if(isFullReport(saleList, offset, limit)) {
+			SortedSaleList<Sale> sortedSalesStore = new SortedSaleList<Sale>(CMP_BY_STORE);
+			sortedSalesStore.addAll(saleList);
+			for(Sale s : sortedSalesStore) {
+				printSaleRow(s, s.saleGrandTotal());
 			}
-		};
-		
-		LinkedList<Sale> salesLinkedListStore = new LinkedList<Sale>(cmpByStore);
-		for(int i = 0; i < saleList.size(); i++) {
-			Sale sale = saleList.get(i);
-			salesLinkedListStore.add(sale);
+		} else {
+			printTopSales(saleList, CMP_BY_STORE, offset, limit);
 		}
-		for(int i = 0; i < salesLinkedListStore.size(); i++) {
-			Sale s = salesLinkedListStore.get(i);
-			System.out.printf("%-11s%-11s%-21s%-21s$%.2f\n", s.getSaleCode(), s.getStore().getStoreCode(), 
-							       															  s.getCustomer().nameToString(), 
-							       															  s.getSalesperson().nameToString(), 
-							       															  s.saleGrandTotal());
+	}
+	
+	/**
+	 * Returns an empty index of sales in Sales by Customer order. A loader thread
+	 * may keep adding sales to it while
+	 * {@link #printSalesCustomer(ConcurrentSortedSaleIndex)} prints it.
+	 * @return index
+	 */
+	public static ConcurrentSortedSaleIndex<Sale> newSalesCustomerIndex() {
+		return new ConcurrentSortedSaleIndex<Sale>(CMP_BY_CUSTOMER);
+	}
+	
+	/**
+	 * Returns an empty index of sales in Sales by Store order. A loader thread
+	 * may keep adding sales to it while
+	 * {@link #printSalesStore(ConcurrentSortedSaleIndex)} prints it.
+	 * @return index
+	 */
+	public static ConcurrentSortedSaleIndex<Sale> newSalesStoreIndex() {
+		return new ConcurrentSortedSaleIndex<Sale>(CMP_BY_STORE);
+	}
+	
+	/**
+	 * This methods prints the report of sales that compares by customer from an
+	 * index made by {@link #newSalesCustomerIndex()}, as of when it is called.
+	 * @param index
+	 */
+	public static void printSalesCustomer(ConcurrentSortedSaleIndex<Sale> index) {
+		printSalesHeader(CUSTOMER_TITLE);
+		LOGGER.debug("DEBUG: Printing live sales summary by customer report");
+		for(Sale s : index.view()) {
+			printSaleRow(s, s.saleGrandTotal());
+		}
+	}
+	
+	/**
+	 * This methods prints the report of sales that compares by store from an
+	 * index made by {@link #newSalesStoreIndex()}, as of when it is called.
+	 * @param index
+	 */
+	public static void printSalesStore(ConcurrentSortedSaleIndex<Sale> index) {
+		printSalesHeader(STORE_TITLE);
+		LOGGER.debug("DEBUG: Printing live sales summary by store report");
+		for(Sale s : index.view()) {
+			printSaleRow(s, s.saleGrandTotal());
 		}
 	}
 	
+	/**
+	 * Prints the banner and column headings of a sorted sales report.
+	 */
+	private static void printSalesHeader(String title) {
+		System.out.println("+----------------------------------------------------------------------------------------+");
+		System.out.println(title);
+		System.out.println("+----------------------------------------------------------------------------------------+");
+		System.out.println("Sale       Store      Customer             Salesperson          Total  ");
+	}
+	
+	/**
+	 * Returns true if the page {@code offset}/{@code limit} covers every sale.
+	 */
+	private static boolean isFullReport(LinkedList<Sale> saleList, int offset, int limit) {
+		if(offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("Invalid page: " + offset + ", " + limit);
+		}
+		return offset == 0 && limit >= saleList.size();
+	}
+	
+	/**
+	 * Prints one page of sales ordered by {@code cmp}. Only the first
+	 * {@code offset + limit} sales are kept, in a bounded heap, so the pass costs
+	 * O(n log k) time and O(k) memory.
+	 */
+	private static void printTopSales(LinkedList<Sale> saleList, Comparator<Sale> cmp, int offset, int limit) {
+		int capacity = (int) Math.min((long) offset + limit, saleList.size());
+		BoundedHeap<Sale> topSales = new BoundedHeap<Sale>(cmp, capacity);
+		topSales.addAll(saleList);
+		List<Sale> ranked = topSales.toList();
+		for(int i = offset; i < ranked.size(); i++) {
+			Sale s = ranked.get(i);
+			printSaleRow(s, s.saleGrandTotal());
+		}
+	}
+	
+	/**
+	 * Prints one line of a sorted sales report.
+	 */
+	private static void printSaleRow(Sale s, double total) {
+		System.out.printf("%-11s%-11s%-21s%-21s$%.2f\n", s.getSaleCode(), s.getStore().getStoreCode(), 
+						       															  s.getCustomer().nameToString(), 
+						       															  s.getSalesperson().nameToString(), 
+						       															  total);
+	}
+	
 }
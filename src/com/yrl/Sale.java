@@ -6,7 +6,9 @@ import java.util.List;
 import java.util.Objects;
 
 /**
- * This class models the Sale.
+ * This class models the Sale. A sale can be loaded without its lines, holding
+ * only their count and totals; the lines are then fetched from its
+ * {@link SaleItemSource} the first time {@link #getItems()} is called.
  */
 public class Sale {
 	
@@ -15,7 +17,12 @@ public class Sale {
 	private Person customer;
 	private Person salesPerson;
 	private LocalDate date;
-	private List<Item> itemsSold = new ArrayList<>();
+	private List<Item> itemsSold;
+	private long subTotalCents;
+	private long taxCents;
+	private int totalsItemCount = -1;
+	private SaleItemSource itemSource;
+	private int numItems;
 		
 	public Sale(String saleCode, Store store, Person customer, Person salesPerson, LocalDate date) {
 		super();
@@ -32,7 +39,25 @@ public class Sale {
 	public Sale(String saleCode, List<Item> sales) {
 		super();
 		this.saleCode = saleCode;
-		this.itemsSold = sales;
+		this.itemsSold = (sales == null) ? new ArrayList<>() : sales;
+	}
+
+	/**
+	 * Creates a sale whose lines are not loaded yet. Its line count and totals
+	 * are the given aggregates until {@code itemSource} supplies the lines.
+	 */
+	public Sale(String saleCode, Store store, Person customer, Person salesPerson, LocalDate date, int numItems,
+			long subTotalCents, long taxCents, SaleItemSource itemSource) {
+		super();
+		this.saleCode = saleCode;
+		this.store = store;
+		this.customer = customer;
+		this.salesPerson = salesPerson;
+		this.date = date;
+		this.numItems = numItems;
+		this.subTotalCents = subTotalCents;
+		this.taxCents = taxCents;
+		this.itemSource = itemSource;
 	}
 	
 	/**
@@ -40,11 +65,7 @@ public class Sale {
 	 * @return totalPerSale
 	 */
 	public double saleSubTotal() {
-		double totalPerSale = 0;
-		for(Item item : this.getItems()) {
-			totalPerSale += item.getSubTotal();
-		}
-		return totalPerSale;
+		return this.saleSubTotalCents() / 100.0;
 	}
 	
 	/**
@@ -52,25 +73,66 @@ public class Sale {
 	 * @return taxPerSale
 	 */
 	public double saleTotalTax() {
-		double taxPerSale = 0;
-		for(Item item : this.getItems()) {
-			taxPerSale += item.getTaxes();
-		}
-		return taxPerSale;
+		return this.saleTotalTaxCents() / 100.0;
 	}
 	
 	/**
 	 * This method calculates the grand total of all items in the Sale after tax. 
 	 */
 	public double saleGrandTotal() {
-		return this.saleSubTotal() + this.saleTotalTax();
+		return this.saleGrandTotalCents() / 100.0;
+	}
+	
+	/**
+	 * This method gets the subTotal of all items in the Sale before tax, in cents. 
+	 */
+	public long saleSubTotalCents() {
+		this.updateTotals();
+		return this.subTotalCents;
+	}
+	
+	/**
+	 * This method gets the taxes of all items in the Sale, in cents. 
+	 */
+	public long saleTotalTaxCents() {
+		this.updateTotals();
+		return this.taxCents;
+	}
+	
+	/**
+	 * This method gets the grand total of all items in the Sale after tax, in cents. 
+	 */
+	public long saleGrandTotalCents() {
+		this.updateTotals();
+		return this.subTotalCents + this.taxCents;
+	}
+	
+	/**
+	 * Recomputes the cached totals if items were added since they were last
+	 * summed.
+	 */
+	private void updateTotals() {
+		if (this.itemsSold == null || this.totalsItemCount == this.itemsSold.size()) {
+			return;
+		}
+		long subTotal = 0;
+		long tax = 0;
+		for (Item item : this.itemsSold) {
+			if (item != null) {
+				subTotal += item.getSubTotalCents();
+				tax += item.getTaxesCents();
+			}
+		}
+		this.subTotalCents = subTotal;
+		this.taxCents = tax;
+		this.totalsItemCount = this.itemsSold.size();
 	}
 	
 	/**
 	 * This method gets the total number of items for a Sale. 
 	 */
 	public int getNumItems() {
-		return itemsSold.size();
+		return (this.itemsSold == null) ? this.numItems : this.itemsSold.size();
 	}
 
 	public String getSaleCode() {
@@ -93,17 +155,99 @@ public class Sale {
     	return this.date.toString();
     }
 	
+	public LocalDate getSaleDate() {
+		return this.date;
+	}
+	
+	/**
+	 * Returns the lines of the sale, fetching them from its item source first
+	 * if they are not loaded yet.
+	 * 
+	 * @return items
+	 */
 	public List<Item> getItems() {
+		if (this.itemsSold == null) {
+			this.itemSource.loadItems(this);
+			if (this.itemsSold == null) {
+				throw new IllegalStateException("No items supplied for sale " + this.saleCode);
+			}
+		}
 		return itemsSold;
 	}
+
+	/**
+	 * Return {@code true} if the lines of the sale are loaded.
+	 * 
+	 * @return
+	 */
+	public boolean isItemsLoaded() {
+		return this.itemsSold != null;
+	}
 	
 	public void addSale(Item sale) {
-		this.itemsSold.add(sale);
+		this.getItems().add(sale);
+		this.totalsItemCount = -1;
 	}
 
+	/**
+	 * Sets the lines of a sale loaded without them. The precomputed totals are
+	 * kept if the line count matches.
+	 * 
+	 * @param items
+	 */
+	void setItems(List<Item> items) {
+		this.itemsSold = items;
+		this.itemSource = null;
+		this.totalsItemCount = (items.size() == this.numItems) ? this.numItems : -1;
+	}
+
+	/**
+	 * Drops the (empty) line list of a newly built sale, so its lines will come
+	 * from {@code source}. Lines are then counted in with
+	 * {@link #addDeferredLine(Item)}.
+	 * 
+	 * @param source
+	 */
+	void deferItems(SaleItemSource source) {
+		if (this.itemsSold != null && !this.itemsSold.isEmpty()) {
+			throw new IllegalStateException("Sale " + this.saleCode + " already has items");
+		}
+		this.itemsSold = null;
+		this.itemSource = source;
+		this.numItems = 0;
+		this.subTotalCents = 0;
+		this.taxCents = 0;
+	}
+
+	/**
+	 * Counts a line of a sale whose lines are deferred into its totals without
+	 * keeping it.
+	 * 
+	 * @param item
+	 */
+	void addDeferredLine(Item item) {
+		this.numItems++;
+		if (item != null) {
+			this.subTotalCents += item.getSubTotalCents();
+			this.taxCents += item.getTaxesCents();
+		}
+	}
+
+	/**
+	 * Returns the source this sale's lines are still to be fetched from, or null
+	 * if they are loaded.
+	 */
+	SaleItemSource getItemSource() {
+		return this.itemSource;
+	}
+
+	/**
+	 * Sales are identified by code and date only, so hashing or comparing one
+	 * never fetches its lines.
+	 */
 	@Override
 	public int hashCode() {
-		return Objects.hash(date, itemsSold, saleCode);
+		return Objects.hash(date, saleCode);
 	}
 
 	@Override
@@ -115,8 +259,7 @@ public class Sale {
 		if (getClass() != obj.getClass())
 			return false;
 		Sale other = (Sale) obj;
-		return Objects.equals(date, other.date) && Objects.equals(itemsSold, other.itemsSold)
-				&& Objects.equals(saleCode, other.saleCode);
+		return Objects.equals(date, other.date) && Objects.equals(saleCode, other.saleCode);
 	}
 	
 }
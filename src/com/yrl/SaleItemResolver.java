@@ -0,0 +1,143 @@
+package com.yrl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns sale item records into line items. It is built once per item catalog:
+ * each item code is bound to its catalog definition and to the parser for that
+ * kind of item, so resolving a record is a single hash lookup on the item code
+ * followed by a direct call, however large the catalog is. Every line built
+ * from a catalog item shares that item's {@link ItemDefinition}.
+ */
+public class SaleItemResolver {
+
+	/**
+	 * Builds the line item for one record from the catalog {@code definition}.
+	 * {@code tokens} holds the positions of the record's non-empty fields.
+	 */
+	private interface LineParser {
+
+		Item parse(Item definition, CsvRecord csv, int[] tokens, Map<String, Person> personMap);
+	}
+
+	/**
+	 * An item code's catalog definition and the parser for its kind of item.
+	 */
+	private static final class Entry {
+
+		private final Item definition;
+		private final LineParser parser;
+
+		private Entry(Item definition, LineParser parser) {
+			this.definition = definition;
+			this.parser = parser;
+		}
+	}
+
+	/**
+	 * The parser for each kind of catalog item. A product record with two fields
+	 * is a purchase and one with four is a lease.
+	 */
+	private static final Map<Class<?>, LineParser> PARSERS = new HashMap<>();
+	static {
+		PARSERS.put(Product.class, (item, csv, tokens, personMap) -> {
+			if (tokens.length == 2) {
+				return new Purchase(item.getDefinition());
+			} else if (tokens.length == 4) {
+				return new Lease(item.getDefinition(), csv.getDate(tokens[2]), csv.getDate(tokens[3]));
+			}
+			return null;
+		});
+		PARSERS.put(Service.class, (item, csv, tokens, personMap) -> {
+			String servicerUuid = csv.getString(tokens[3]);
+			if (personMap.containsKey(servicerUuid)) {
+				return new Service(item.getDefinition(), csv.getDouble(tokens[2]), personMap.get(servicerUuid));
+			} else {
+				throw new RuntimeException("Not found");
+			}
+		});
+		PARSERS.put(Data.class, (item, csv, tokens, personMap) -> {
+			double numGBs = csv.getDouble(tokens[2]);
+			return new Data(item.getDefinition(), numGBs);
+		});
+		PARSERS.put(Voice.class, (item, csv, tokens, personMap) -> {
+			String phoneNum = csv.getString(tokens[2]);
+			int numDays = csv.getInt(tokens[3]);
+			return new Voice(item.getDefinition(), phoneNum, numDays);
+		});
+	}
+
+	private final Map<String, Entry> entries;
+
+	public SaleItemResolver() {
+		this.entries = new HashMap<>();
+	}
+
+	public SaleItemResolver(Map<String, Item> itemMap) {
+		this.entries = new HashMap<>(itemMap.size() * 4 / 3 + 1);
+		for (Item item : itemMap.values()) {
+			this.add(item);
+		}
+	}
+
+	/**
+	 * Adds the catalog definition {@code item}, replacing any with the same code.
+	 *
+	 * @param item
+	 */
+	public void add(Item item) {
+		this.entries.put(item.getCode(), new Entry(item, parserFor(item.getClass())));
+	}
+
+	/**
+	 * Returns the parser registered for {@code type} or its nearest superclass,
+	 * or null if there is none.
+	 */
+	private static LineParser parserFor(Class<?> type) {
+		for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+			LineParser parser = PARSERS.get(c);
+			if (parser != null) {
+				return parser;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the line item described by the current record of a sale items file.
+	 * The item code is the second non-empty field. Returns null if the code is
+	 * not in the catalog or the record does not fit its kind of item.
+	 *
+	 * @param csv, tokens, personMap
+	 * @return item
+	 */
+	public Item resolve(CsvRecord csv, int[] tokens, Map<String, Person> personMap) {
+		Entry entry = this.entries.get(csv.getString(tokens[1]));
+		if (entry == null || entry.parser == null) {
+			return null;
+		}
+		return entry.parser.parse(entry.definition, csv, tokens, personMap);
+	}
+
+	/**
+	 * Returns the catalog definition for {@code code}, or null if there is none.
+	 *
+	 * @param code
+	 * @return item
+	 */
+	public Item getDefinition(String code) {
+		Entry entry = this.entries.get(code);
+		return (entry == null) ? null : entry.definition;
+	}
+
+	/**
+	 * This function returns the number of item codes in the catalog.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+}
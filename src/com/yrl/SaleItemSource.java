@@ -0,0 +1,33 @@
+package com.yrl;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Supplies the lines of sales that were loaded with only their line counts and
+ * totals. A source is asked for a sale's lines the first time
+ * {@link Sale#getItems()} is called, and hands them over with
+ * {@link Sale#setItems(java.util.List)}. It may fetch the lines of other sales
+ * it is still holding back in the same batch.
+ */
+public interface SaleItemSource {
+
+	/**
+	 * Gives {@code sale}, and possibly other pending sales, their lines.
+	 *
+	 * @param sale
+	 */
+	void loadItems(Sale sale);
+
+	/**
+	 * Returns the lines of the given sales, whose lines this source still
+	 * holds back, keyed by sale identity, without handing them over: the sales
+	 * stay deferred. Lets a caller stream lines a batch of sales at a time
+	 * without keeping them all.
+	 *
+	 * @param sales
+	 * @return lines
+	 */
+	Map<Sale, List<Item>> fetchItems(List<Sale> sales);
+
+}
@@ -0,0 +1,326 @@
+package com.yrl;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+/**
+ * A column-oriented copy of every sale line, for analytics over large loads.
+ * Each line is one row across a set of parallel primitive arrays: the
+ * {@link LineType} code,
+ * dictionary ids for the sale, store and item codes, the sale period, the
+ * quantity billed, and the subtotal and tax in cents. Aggregates are plain
+ * loops over those arrays. Each item's unit price is kept once, in an array
+ * indexed by item id, so lines can be repriced in bulk from those prices and
+ * their quantities.
+ */
+public class SaleLineStore {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private final StringDictionary saleCodes;
+	private final StringDictionary storeCodes;
+	private final StringDictionary itemCodes;
+
+	private byte[] types;
+	private int[] saleIds;
+	private int[] storeIds;
+	private int[] itemIds;
+	private int[] periods;
+	private double[] quantities;
+	private long[] subTotalCents;
+	private long[] taxCents;
+	private long[] itemPriceCents;
+	private int size;
+	private int minPeriod;
+	private int maxPeriod;
+
+	public SaleLineStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public SaleLineStore(int capacity) {
+		capacity = Math.max(capacity, 1);
+		this.saleCodes = new StringDictionary();
+		this.storeCodes = new StringDictionary();
+		this.itemCodes = new StringDictionary();
+		this.types = new byte[capacity];
+		this.saleIds = new int[capacity];
+		this.storeIds = new int[capacity];
+		this.itemIds = new int[capacity];
+		this.periods = new int[capacity];
+		this.quantities = new double[capacity];
+		this.subTotalCents = new long[capacity];
+		this.taxCents = new long[capacity];
+		this.itemPriceCents = new long[DEFAULT_CAPACITY];
+		this.size = 0;
+		this.minPeriod = Integer.MAX_VALUE;
+		this.maxPeriod = Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Builds a store holding every line of the given sales. To build one
+	 * straight from a sale items file or the database, without keeping the line
+	 * objects, use {@code CsvDataLoader.loadSaleLines} or
+	 * {@code DatabaseLoader.loadSaleLines}.
+	 *
+	 * @param sales
+	 * @return store
+	 */
+	public static SaleLineStore fromSales(Iterable<Sale> sales) {
+		SaleLineStore store = new SaleLineStore();
+		for (Sale sale : sales) {
+			for (Item item : sale.getItems()) {
+				if (item != null) {
+					store.add(sale, item);
+				}
+			}
+		}
+		return store;
+	}
+
+	/**
+	 * Appends the line {@code item} of the sale {@code sale}.
+	 *
+	 * @param sale
+	 * @param item
+	 */
+	public void add(Sale sale, Item item) {
+		if (this.size == this.types.length) {
+			this.grow();
+		}
+		int i = this.size;
+		LineType type = LineType.of(item);
+		this.types[i] = type.code();
+		this.saleIds[i] = this.saleCodes.encode(sale.getSaleCode());
+		this.storeIds[i] = (sale.getStore() == null) ? -1 : this.storeCodes.encode(sale.getStore().getStoreCode());
+		int numItems = this.itemCodes.size();
+		this.itemIds[i] = this.itemCodes.encode(item.getCode());
+		if (this.itemIds[i] == numItems) {
+			if (numItems == this.itemPriceCents.length) {
+				this.itemPriceCents = Arrays.copyOf(this.itemPriceCents, numItems * 2);
+			}
+			this.itemPriceCents[numItems] = item.getDefinition().getPriceCents();
+		}
+		this.periods[i] = periodOf(sale.getSaleDate());
+		this.quantities[i] = type.quantityOf(item);
+		this.subTotalCents[i] = item.getSubTotalCents();
+		this.taxCents[i] = item.getTaxesCents();
+		this.minPeriod = Math.min(this.minPeriod, this.periods[i]);
+		this.maxPeriod = Math.max(this.maxPeriod, this.periods[i]);
+		this.size++;
+	}
+
+	/**
+	 * Encodes a date as a month count since year zero, so consecutive months
+	 * are consecutive ints.
+	 */
+	private static int periodOf(LocalDate date) {
+		return date.getYear() * 12 + date.getMonthValue() - 1;
+	}
+
+	private void grow() {
+		int capacity = this.types.length * 2;
+		this.types = Arrays.copyOf(this.types, capacity);
+		this.saleIds = Arrays.copyOf(this.saleIds, capacity);
+		this.storeIds = Arrays.copyOf(this.storeIds, capacity);
+		this.itemIds = Arrays.copyOf(this.itemIds, capacity);
+		this.periods = Arrays.copyOf(this.periods, capacity);
+		this.quantities = Arrays.copyOf(this.quantities, capacity);
+		this.subTotalCents = Arrays.copyOf(this.subTotalCents, capacity);
+		this.taxCents = Arrays.copyOf(this.taxCents, capacity);
+	}
+
+	/**
+	 * Sets the unit price of the item {@code itemCode} and reprices its lines.
+	 * Returns the number of lines repriced.
+	 *
+	 * @param itemCode
+	 * @param priceCents
+	 * @return count
+	 */
+	public int setItemPriceCents(String itemCode, long priceCents) {
+		int itemId = this.itemCodes.lookup(itemCode);
+		if (itemId < 0) {
+			return 0;
+		}
+		this.itemPriceCents[itemId] = priceCents;
+		int count = 0;
+		for (int i = 0; i < this.size; i++) {
+			if (this.itemIds[i] == itemId) {
+				this.price(i);
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Recomputes the subtotal and tax of every line from its item's unit price
+	 * and its quantity.
+	 */
+	public void reprice() {
+		for (int i = 0; i < this.size; i++) {
+			this.price(i);
+		}
+	}
+
+	private void price(int i) {
+		LineType type = LineType.fromCode(this.types[i]);
+		long subTotal = type.subTotalCents(this.itemPriceCents[this.itemIds[i]], this.quantities[i]);
+		this.subTotalCents[i] = subTotal;
+		this.taxCents[i] = type.taxCents(subTotal);
+	}
+
+	/**
+	 * Returns the grand total in cents per store, indexed by store id.
+	 *
+	 * @return totals
+	 */
+	public long[] totalCentsByStore() {
+		long[] totals = new long[this.storeCodes.size()];
+		for (int i = 0; i < this.size; i++) {
+			int store = this.storeIds[i];
+			if (store >= 0) {
+				totals[store] += this.subTotalCents[i] + this.taxCents[i];
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * Returns the grand total in cents per item type, indexed by
+	 * {@link LineType} ordinal.
+	 *
+	 * @return totals
+	 */
+	public long[] totalCentsByType() {
+		long[] totals = new long[LineType.count()];
+		for (int i = 0; i < this.size; i++) {
+			totals[this.types[i]] += this.subTotalCents[i] + this.taxCents[i];
+		}
+		return totals;
+	}
+
+	/**
+	 * Returns the grand total in cents per month, where index 0 is
+	 * {@link #getFirstPeriod()} and each following index is the next month.
+	 *
+	 * @return totals
+	 */
+	public long[] totalCentsByPeriod() {
+		if (this.size == 0) {
+			return new long[0];
+		}
+		long[] totals = new long[this.maxPeriod - this.minPeriod + 1];
+		int base = this.minPeriod;
+		for (int i = 0; i < this.size; i++) {
+			totals[this.periods[i] - base] += this.subTotalCents[i] + this.taxCents[i];
+		}
+		return totals;
+	}
+
+	/**
+	 * Returns the number of lines per store, indexed by store id.
+	 *
+	 * @return counts
+	 */
+	public int[] lineCountByStore() {
+		int[] counts = new int[this.storeCodes.size()];
+		for (int i = 0; i < this.size; i++) {
+			int store = this.storeIds[i];
+			if (store >= 0) {
+				counts[store]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Returns the month at index 0 of {@link #totalCentsByPeriod()}, or null if
+	 * the store is empty.
+	 *
+	 * @return period
+	 */
+	public YearMonth getFirstPeriod() {
+		if (this.size == 0) {
+			return null;
+		}
+		return YearMonth.of(this.minPeriod / 12, this.minPeriod % 12 + 1);
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public StringDictionary getSaleCodes() {
+		return this.saleCodes;
+	}
+
+	public StringDictionary getStoreCodes() {
+		return this.storeCodes;
+	}
+
+	public StringDictionary getItemCodes() {
+		return this.itemCodes;
+	}
+
+	public LineType getType(int index) {
+		this.boundsCheck(index);
+		return LineType.fromCode(this.types[index]);
+	}
+
+	public String getSaleCode(int index) {
+		this.boundsCheck(index);
+		return this.saleCodes.decode(this.saleIds[index]);
+	}
+
+	public String getStoreCode(int index) {
+		this.boundsCheck(index);
+		return (this.storeIds[index] < 0) ? null : this.storeCodes.decode(this.storeIds[index]);
+	}
+
+	public String getItemCode(int index) {
+		this.boundsCheck(index);
+		return this.itemCodes.decode(this.itemIds[index]);
+	}
+
+	public double getQuantity(int index) {
+		this.boundsCheck(index);
+		return this.quantities[index];
+	}
+
+	public long getSubTotalCents(int index) {
+		this.boundsCheck(index);
+		return this.subTotalCents[index];
+	}
+
+	public long getTaxCents(int index) {
+		this.boundsCheck(index);
+		return this.taxCents[index];
+	}
+
+	/**
+	 * Returns the unit price in cents of the item {@code itemCode}, or -1 if no
+	 * line is for that item.
+	 *
+	 * @param itemCode
+	 * @return
+	 */
+	public long getItemPriceCents(String itemCode) {
+		int itemId = this.itemCodes.lookup(itemCode);
+		return (itemId < 0) ? -1 : this.itemPriceCents[itemId];
+	}
+
+	/**
+	 * Check the validity of the bounds by {@code index}.
+	 *
+	 * @param index
+	 */
+	private void boundsCheck(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IllegalArgumentException("Invalid index: " + index);
+		}
+	}
+
+}
@@ -0,0 +1,262 @@
+package com.yrl;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A ranking of sales by grand total, highest first. Each sale's total is
+ * computed once when it is added and kept as a {@code long} count of cents in
+ * an array parallel to the sales themselves, so ranking never calls back into
+ * {@link Sale} and never allocates a node per element. Sales with the same
+ * total keep the order they were added in.
+ */
+public class SaleValueIndex implements Iterable<Sale> {
+
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private long[] keys;
+	private Sale[] sales;
+	private int size;
+	private boolean sorted;
+	private int modCount;
+
+	public SaleValueIndex() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public SaleValueIndex(int capacity) {
+		this.keys = new long[Math.max(capacity, 1)];
+		this.sales = new Sale[Math.max(capacity, 1)];
+		this.size = 0;
+		this.sorted = true;
+	}
+
+	/**
+	 * Add the given sale {@code s}, keyed by its grand total in cents.
+	 *
+	 * @param s
+	 */
+	public void add(Sale s) {
+		this.add(s, s.saleGrandTotalCents());
+	}
+
+	/**
+	 * Add the given sale {@code s} under an already computed total of
+	 * {@code totalCents}.
+	 *
+	 * @param s
+	 * @param totalCents
+	 */
+	public void add(Sale s, long totalCents) {
+		if (this.size == this.keys.length) {
+			this.grow();
+		}
+		if (this.size > 0 && totalCents > this.keys[this.size - 1]) {
+			this.sorted = false;
+		}
+		this.keys[this.size] = totalCents;
+		this.sales[this.size] = s;
+		this.size++;
+		this.modCount++;
+	}
+
+	/**
+	 * Add every sale in {@code values}.
+	 *
+	 * @param values
+	 */
+	public void addAll(Iterable<Sale> values) {
+		for (Sale s : values) {
+			this.add(s);
+		}
+	}
+
+	/**
+	 * Get the sale ranked at the given index {@code index}.
+	 *
+	 * @param index
+	 */
+	public Sale get(int index) {
+		this.boundsCheck(index);
+		this.ensureSorted();
+		return this.sales[index];
+	}
+
+	/**
+	 * Get the grand total, in cents, of the sale ranked at the given index
+	 * {@code index}.
+	 *
+	 * @param index
+	 */
+	public long getTotalCents(int index) {
+		this.boundsCheck(index);
+		this.ensureSorted();
+		return this.keys[index];
+	}
+
+	/**
+	 * Get the grand total of the sale ranked at the given index {@code index}.
+	 *
+	 * @param index
+	 */
+	public double getTotal(int index) {
+		return this.getTotalCents(index) / 100.0;
+	}
+
+	/**
+	 * Returns up to {@code limit} sales ranked from the given index
+	 * {@code offset} on.
+	 *
+	 * @param offset
+	 * @param limit
+	 * @return
+	 */
+	public List<Sale> page(int offset, int limit) {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("Invalid page: " + offset + ", " + limit);
+		}
+		this.ensureSorted();
+		int end = (int) Math.min((long) offset + limit, this.size);
+		List<Sale> page = new ArrayList<>(Math.max(end - offset, 0));
+		for (int i = offset; i < end; i++) {
+			page.add(this.sales[i]);
+		}
+		return page;
+	}
+
+	/**
+	 * This function returns the number of sales in the index.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Return {@code true} if the index has no sale, {@code false} otherwise.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return (this.size == 0);
+	}
+
+	/**
+	 * This function clears out the contents of the index.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.sales[i] = null;
+		}
+		this.size = 0;
+		this.sorted = true;
+		this.modCount++;
+	}
+
+	/**
+	 * Check the validity of the bounds by {@code index}.
+	 *
+	 * @param index
+	 */
+	private void boundsCheck(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IllegalArgumentException("Invalid index: " + index);
+		}
+	}
+
+	private void grow() {
+		int capacity = this.keys.length * 2;
+		long[] newKeys = new long[capacity];
+		Sale[] newSales = new Sale[capacity];
+		System.arraycopy(this.keys, 0, newKeys, 0, this.size);
+		System.arraycopy(this.sales, 0, newSales, 0, this.size);
+		this.keys = newKeys;
+		this.sales = newSales;
+	}
+
+	/**
+	 * Sorts both arrays by descending key the first time the ranking is read
+	 * after an out of order add. The merge sort is stable, so equal totals keep
+	 * their insertion order.
+	 */
+	private void ensureSorted() {
+		if (this.sorted) {
+			return;
+		}
+		long[] keyBuffer = new long[this.size];
+		Sale[] saleBuffer = new Sale[this.size];
+		mergeSort(this.keys, this.sales, keyBuffer, saleBuffer, 0, this.size);
+		this.sorted = true;
+	}
+
+	/**
+	 * Sorts {@code keys[from, to)} descending, moving {@code sales} alongside.
+	 */
+	private static void mergeSort(long[] keys, Sale[] sales, long[] keyBuffer, Sale[] saleBuffer, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		mergeSort(keys, sales, keyBuffer, saleBuffer, from, mid);
+		mergeSort(keys, sales, keyBuffer, saleBuffer, mid, to);
+		if (keys[mid - 1] >= keys[mid]) {
+			return;
+		}
+		System.arraycopy(keys, from, keyBuffer, from, to - from);
+		System.arraycopy(sales, from, saleBuffer, from, to - from);
+		int left = from;
+		int right = mid;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < mid && keyBuffer[left] >= keyBuffer[right])) {
+				keys[i] = keyBuffer[left];
+				sales[i] = saleBuffer[left];
+				left++;
+			} else {
+				keys[i] = keyBuffer[right];
+				sales[i] = saleBuffer[right];
+				right++;
+			}
+		}
+	}
+
+	/**
+	 * This is the iterator in order to implement the enhanced for loop. It
+	 * returns sales from the highest total to the lowest.
+	 * @return
+	 */
+	@Override
+	public Iterator<Sale> iterator() {
+		this.ensureSorted();
+		return new Iterator<Sale>() {
+
+			private int next = 0;
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < size;
+			}
+
+			@Override
+			public Sale next() {
+				if (modCount != this.expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return sales[this.next++];
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+}
@@ -48,14 +48,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not delete the table " + tableName);
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (ps != null && !ps.isClosed())
-				ps.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(null, ps, null);
 		}
 	}
 	
@@ -69,20 +63,16 @@ public class SalesData {
 
 		conn = ConnectionFactory.getConnection();
 
-		clearTable(conn, "SaleItem");
-		clearTable(conn, "Sale");
-		clearTable(conn, "Item");
-		clearTable(conn, "Store");
-		clearTable(conn, "Email");
-		clearTable(conn, "Person");
-		clearTable(conn, "Address");
-
 		try {
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources", e);
-			throw new RuntimeException(e);
+			clearTable(conn, "SaleItem");
+			clearTable(conn, "Sale");
+			clearTable(conn, "Item");
+			clearTable(conn, "Store");
+			clearTable(conn, "Email");
+			clearTable(conn, "Person");
+			clearTable(conn, "Address");
+		} finally {
+			ConnectionFactory.close(null, null, conn);
 		}
 
 	}
@@ -122,16 +112,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add address");
 			throw new RuntimeException(e);
-		}
-		
-		try {
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(null, ps, conn);
 		}
 		
 		return addressId;
@@ -192,18 +174,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add person");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 	}
@@ -254,18 +226,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add email");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 	}
@@ -335,18 +297,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add store");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 	}
@@ -370,15 +322,7 @@ public class SalesData {
 		
 		String query = "INSERT INTO Item (code,name,type,basePrice) VALUES (?,?,?,?)";
 		
-		if(type.equals("Data")) {
-			type = "D";
-		} else if (type.equals("Voice")) {
-			type = "V";
-		} else if (type.equals("Product")) {
-			type = "P";
-		} else if (type.equals("Service")) {
-			type = "S";
-		}
+		type = itemType(type);
 
 		PreparedStatement ps = null;
 
@@ -396,17 +340,26 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add Item");
 			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(null, ps, conn);
 		}
+	}
 
-		try {
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+	/**
+	 * Maps an item type name to the code stored in the Item table; any other
+	 * value is stored as given.
+	 */
+	static String itemType(String type) {
+		if(type.equals("Data")) {
+			return "D";
+		} else if (type.equals("Voice")) {
+			return "V";
+		} else if (type.equals("Product")) {
+			return "P";
+		} else if (type.equals("Service")) {
+			return "S";
 		}
+		return type;
 	}
 
 	/**
@@ -485,18 +438,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add sale");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed()) 
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 	}
 
@@ -557,18 +500,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add Product");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed()) 
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 	}
 
@@ -636,18 +569,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add lease to sale");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 	}
@@ -731,18 +654,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add service to sale");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 	}
 
@@ -805,18 +718,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add Data plan");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed()) 
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 	}
 
@@ -885,18 +788,8 @@ public class SalesData {
 		} catch (SQLException e) {
 			LOGGER.error("Could not add service to sale");
 			throw new RuntimeException(e);
-		}
-
-		try {
-			if (rs != null && !rs.isClosed())
-				rs.close();
-			if (ps != null && !ps.isClosed())
-				ps.close();
-			if (conn != null && !conn.isClosed())
-				conn.close();
-		} catch (SQLException e) {
-			LOGGER.error("Could not close resources");
-			throw new RuntimeException(e);
+		} finally {
+			ConnectionFactory.close(rs, ps, conn);
 		}
 
 	}
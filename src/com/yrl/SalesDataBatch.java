@@ -0,0 +1,722 @@
+package com.yrl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A bulk counterpart to the add methods of {@link SalesData}. Records are
+ * buffered instead of written one at a time; every {@code commitSize} records,
+ * and on {@link #flush()} or {@link #close()}, the buffer is written in one
+ * transaction on one connection. Within it each table gets a single
+ * {@code executeBatch}, which {@code rewriteBatchedStatements} turns into
+ * multi-row inserts, and the ids behind person UUIDs and address, store, item
+ * and sale codes are looked up with one {@code IN} query per
+ * {@value #LOOKUP_SIZE} keys. Ids already seen are remembered for the rest of
+ * the session. A row found is matched back only to a key spelled exactly as
+ * it is stored; a key left without one is then looked up on its own with
+ * {@code =}, so that, as in {@link SalesData}, the database's collation decides
+ * whether it exists under another spelling.
+ *
+ * A record may refer to records added earlier in the same session, flushed or
+ * not. As with {@link SalesData}, a record whose person, store, item or sale
+ * cannot be found is logged and skipped, and an address is reused if an
+ * identical one exists and inserted otherwise. If a write fails, for whatever
+ * reason, the whole transaction is rolled back and its records are dropped.
+ */
+public class SalesDataBatch implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger(SalesDataBatch.class);
+
+	public static final int DEFAULT_COMMIT_SIZE = 5000;
+	private static final int LOOKUP_SIZE = 1000;
+
+	private static final String PERSON_INSERT = "INSERT INTO Person (uuid,lastName,firstName,addressId) VALUES (?,?,?,?)";
+	private static final String EMAIL_INSERT = "INSERT INTO Email (email,personId) VALUES (?,?)";
+	private static final String STORE_INSERT = "INSERT INTO Store (storeCode,personId,addressId) VALUES (?,?,?)";
+	private static final String ITEM_INSERT = "INSERT INTO Item (code,name,type,basePrice) VALUES (?,?,?,?)";
+	private static final String ADDRESS_INSERT = "INSERT INTO Address (street,city,state,zip) VALUES (?,?,?,?)";
+	private static final String SALE_INSERT = "INSERT INTO Sale (saleCode,storeId,customerId,salesPersonId,date) VALUES (?,?,?,?,?)";
+	private static final String PRODUCT_INSERT = "INSERT INTO SaleItem (saleId,productType,itemId) VALUES (?,?,?)";
+	private static final String LEASE_INSERT = "INSERT INTO SaleItem (itemId,saleId,productType,startDate,endDate) VALUES (?,?,?,?,?)";
+	private static final String SERVICE_INSERT = "INSERT INTO SaleItem (itemId,saleId,numHours,servicerId) VALUES (?,?,?,?)";
+	private static final String DATA_INSERT = "INSERT INTO SaleItem (saleId,itemId,numGBs) VALUES (?,?,?)";
+	private static final String VOICE_INSERT = "INSERT INTO SaleItem (itemId,saleId,phoneNum,numDays) VALUES (?,?,?,?)";
+
+	private static final int PRODUCT = 0;
+	private static final int LEASE = 1;
+	private static final int SERVICE = 2;
+	private static final int DATA = 3;
+	private static final int VOICE = 4;
+
+	private static final class PersonRow {
+		private final String uuid, firstName, lastName, address;
+
+		private PersonRow(String uuid, String firstName, String lastName, String address) {
+			this.uuid = uuid;
+			this.firstName = firstName;
+			this.lastName = lastName;
+			this.address = address;
+		}
+	}
+
+	private static final class EmailRow {
+		private final String personUuid, email;
+
+		private EmailRow(String personUuid, String email) {
+			this.personUuid = personUuid;
+			this.email = email;
+		}
+	}
+
+	private static final class StoreRow {
+		private final String storeCode, managerUuid, address;
+
+		private StoreRow(String storeCode, String managerUuid, String address) {
+			this.storeCode = storeCode;
+			this.managerUuid = managerUuid;
+			this.address = address;
+		}
+	}
+
+	private static final class ItemRow {
+		private final String code, name, type;
+		private final double basePrice;
+
+		private ItemRow(String code, String name, String type, double basePrice) {
+			this.code = code;
+			this.name = name;
+			this.type = type;
+			this.basePrice = basePrice;
+		}
+	}
+
+	private static final class SaleRow {
+		private final String saleCode, storeCode, customerUuid, salesPersonUuid, saleDate;
+
+		private SaleRow(String saleCode, String storeCode, String customerUuid, String salesPersonUuid,
+				String saleDate) {
+			this.saleCode = saleCode;
+			this.storeCode = storeCode;
+			this.customerUuid = customerUuid;
+			this.salesPersonUuid = salesPersonUuid;
+			this.saleDate = saleDate;
+		}
+	}
+
+	/**
+	 * A sale line of any kind; only the fields of its kind are set.
+	 * {@code text} is a service line's servicer UUID or a voice line's phone
+	 * number.
+	 */
+	private static final class LineRow {
+		private final int kind;
+		private final String saleCode, itemCode;
+		private String startDate, endDate, text;
+		private double quantity;
+		private int days;
+
+		private LineRow(int kind, String saleCode, String itemCode) {
+			this.kind = kind;
+			this.saleCode = saleCode;
+			this.itemCode = itemCode;
+		}
+	}
+
+	private final Connection conn;
+	private final int commitSize;
+
+	private final Map<String, String[]> addresses = new LinkedHashMap<>();
+	private final List<PersonRow> persons = new ArrayList<>();
+	private final List<EmailRow> emails = new ArrayList<>();
+	private final List<StoreRow> stores = new ArrayList<>();
+	private final List<ItemRow> items = new ArrayList<>();
+	private final List<SaleRow> sales = new ArrayList<>();
+	private final List<LineRow> lines = new ArrayList<>();
+	private int pending;
+	private long written;
+
+	private final Map<String, Integer> addressIds = new HashMap<>();
+	private final Map<String, Integer> personIds = new HashMap<>();
+	private final Map<String, Integer> storeIds = new HashMap<>();
+	private final Map<String, Integer> itemIds = new HashMap<>();
+	private final Map<String, Integer> saleIds = new HashMap<>();
+
+	public SalesDataBatch() {
+		this(DEFAULT_COMMIT_SIZE);
+	}
+
+	/**
+	 * Opens a session that commits every {@code commitSize} records.
+	 *
+	 * @param commitSize
+	 */
+	public SalesDataBatch(int commitSize) {
+		if (commitSize < 1) {
+			throw new IllegalArgumentException("Invalid commit size: " + commitSize);
+		}
+		this.commitSize = commitSize;
+		this.conn = ConnectionFactory.getConnection();
+		try {
+			this.conn.setAutoCommit(false);
+		} catch (SQLException e) {
+			LOGGER.error("Could not start a transaction", e);
+			try {
+				this.conn.close();
+			} catch (SQLException c) {
+				e.addSuppressed(c);
+			}
+			throw new RuntimeException(e);
+		}
+	}
+
+	public void addPerson(String personUuid, String firstName, String lastName, String street, String city,
+			String state, String zip) {
+		this.persons.add(new PersonRow(personUuid, firstName, lastName, this.address(street, city, state, zip)));
+		this.added();
+	}
+
+	public void addEmail(String personUuid, String email) {
+		this.emails.add(new EmailRow(personUuid, email));
+		this.added();
+	}
+
+	public void addStore(String storeCode, String managerCode, String street, String city, String state,
+			String zip) {
+		this.stores.add(new StoreRow(storeCode, managerCode, this.address(street, city, state, zip)));
+		this.added();
+	}
+
+	/**
+	 * Adds an item; {@code type} is as for {@link SalesData#addItem}.
+	 *
+	 * @param code, name, type, basePrice
+	 */
+	public void addItem(String code, String name, String type, double basePrice) {
+		this.items.add(new ItemRow(code, name, SalesData.itemType(type), basePrice));
+		this.added();
+	}
+
+	public void addSale(String saleCode, String storeCode, String customerPersonUuid, String salesPersonUuid,
+			String saleDate) {
+		this.sales.add(new SaleRow(saleCode, storeCode, customerPersonUuid, salesPersonUuid, saleDate));
+		this.added();
+	}
+
+	public void addProductToSale(String saleCode, String itemCode) {
+		this.lines.add(new LineRow(PRODUCT, saleCode, itemCode));
+		this.added();
+	}
+
+	public void addLeaseToSale(String saleCode, String itemCode, String startDate, String endDate) {
+		LineRow line = new LineRow(LEASE, saleCode, itemCode);
+		line.startDate = startDate;
+		line.endDate = endDate;
+		this.lines.add(line);
+		this.added();
+	}
+
+	public void addServiceToSale(String saleCode, String itemCode, double billedHours, String servicerPersonUuid) {
+		LineRow line = new LineRow(SERVICE, saleCode, itemCode);
+		line.quantity = billedHours;
+		line.text = servicerPersonUuid;
+		this.lines.add(line);
+		this.added();
+	}
+
+	public void addDataPlanToSale(String saleCode, String itemCode, double gbs) {
+		LineRow line = new LineRow(DATA, saleCode, itemCode);
+		line.quantity = gbs;
+		this.lines.add(line);
+		this.added();
+	}
+
+	public void addVoicePlanToSale(String saleCode, String itemCode, String phoneNumber, int days) {
+		LineRow line = new LineRow(VOICE, saleCode, itemCode);
+		line.text = phoneNumber;
+		line.days = days;
+		this.lines.add(line);
+		this.added();
+	}
+
+	/**
+	 * Returns the number of records flushed so far, counting any skipped for
+	 * a missing reference.
+	 *
+	 * @return
+	 */
+	public long getWrittenCount() {
+		return this.written;
+	}
+
+	private String address(String street, String city, String state, String zip) {
+		String key = street + '\0' + city + '\0' + state + '\0' + zip;
+		if (!this.addressIds.containsKey(key)) {
+			this.addresses.putIfAbsent(key, new String[] { street, city, state, zip });
+		}
+		return key;
+	}
+
+	private void added() {
+		this.pending++;
+		if (this.pending >= this.commitSize) {
+			this.flush();
+		}
+	}
+
+	/**
+	 * Writes and commits every buffered record.
+	 */
+	public void flush() {
+		if (this.pending == 0) {
+			return;
+		}
+		boolean committed = false;
+		try {
+			this.writeAddresses();
+			this.writeItems();
+			this.writePersons();
+			this.resolvePersons();
+			this.writeEmails();
+			this.writeStores();
+			this.writeSales();
+			this.writeLines();
+			this.conn.commit();
+			committed = true;
+			this.written += this.pending;
+		} catch (SQLException e) {
+			throw new RuntimeException(e);
+		} finally {
+			if (!committed) {
+				LOGGER.error("Could not write batch of " + this.pending + " records");
+				this.rollback();
+			}
+			this.clear();
+		}
+	}
+
+	/**
+	 * Undoes the current transaction. Ids looked up in it may belong to rows
+	 * that are now gone, so every remembered id is forgotten.
+	 */
+	private void rollback() {
+		try {
+			this.conn.rollback();
+		} catch (SQLException e) {
+			LOGGER.error("Could not roll back batch", e);
+		}
+		this.addressIds.clear();
+		this.personIds.clear();
+		this.storeIds.clear();
+		this.itemIds.clear();
+		this.saleIds.clear();
+	}
+
+	private void clear() {
+		this.addresses.clear();
+		this.persons.clear();
+		this.emails.clear();
+		this.stores.clear();
+		this.items.clear();
+		this.sales.clear();
+		this.lines.clear();
+		this.pending = 0;
+	}
+
+	/**
+	 * Flushes what is left and gives the connection back.
+	 */
+	@Override
+	public void close() {
+		try {
+			this.flush();
+		} finally {
+			try {
+				this.conn.close();
+			} catch (SQLException e) {
+				LOGGER.error("Could not close resources");
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	/**
+	 * Looks up the buffered addresses, inserts the ones not found and looks
+	 * those up again for their ids.
+	 */
+	private void writeAddresses() throws SQLException {
+		this.resolveAddresses();
+		if (this.addresses.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = this.conn.prepareStatement(ADDRESS_INSERT)) {
+			for (String[] a : this.addresses.values()) {
+				for (int i = 0; i < 4; i++) {
+					ps.setString(i + 1, a[i]);
+				}
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+		this.resolveAddresses();
+	}
+
+	/**
+	 * Moves every buffered address found in the database from
+	 * {@code addresses} to {@code addressIds}. Addresses without a street,
+	 * which {@code IN} never matches, are looked up separately, and those
+	 * still not found are looked up one at a time as {@link SalesData} does.
+	 */
+	private void resolveAddresses() throws SQLException {
+		Set<String> streets = new LinkedHashSet<>();
+		boolean noStreet = false;
+		for (String[] a : this.addresses.values()) {
+			if (a[0] == null) {
+				noStreet = true;
+			} else {
+				streets.add(a[0]);
+			}
+		}
+		for (List<String> chunk : chunks(streets)) {
+			this.resolveAddresses("street IN " + placeholders(chunk.size()), chunk);
+		}
+		if (noStreet) {
+			this.resolveAddresses("street IS NULL", Collections.emptyList());
+		}
+		this.addresses.keySet().removeAll(this.addressIds.keySet());
+		if (this.addresses.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = this.conn.prepareStatement(
+				"SELECT addressId FROM Address a WHERE a.street = ? AND a.city = ? AND a.state = ? AND a.zip = ?")) {
+			Iterator<Map.Entry<String, String[]>> it = this.addresses.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, String[]> e = it.next();
+				for (int i = 0; i < 4; i++) {
+					ps.setString(i + 1, e.getValue()[i]);
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					if (rs.next()) {
+						this.addressIds.put(e.getKey(), rs.getInt("addressId"));
+						it.remove();
+					}
+				}
+			}
+		}
+	}
+
+	private void resolveAddresses(String condition, List<String> params) throws SQLException {
+		try (PreparedStatement ps = this.conn
+				.prepareStatement("SELECT addressId,street,city,state,zip FROM Address WHERE " + condition)) {
+			for (int i = 0; i < params.size(); i++) {
+				ps.setString(i + 1, params.get(i));
+			}
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					String key = rs.getString("street") + '\0' + rs.getString("city") + '\0' + rs.getString("state")
+							+ '\0' + rs.getString("zip");
+					if (this.addresses.containsKey(key)) {
+						this.addressIds.putIfAbsent(key, rs.getInt("addressId"));
+					}
+				}
+			}
+		}
+	}
+
+	private void writeItems() throws SQLException {
+		if (this.items.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = this.conn.prepareStatement(ITEM_INSERT)) {
+			for (ItemRow item : this.items) {
+				ps.setString(1, item.code);
+				ps.setString(2, item.name);
+				ps.setString(3, item.type);
+				ps.setDouble(4, item.basePrice);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private void writePersons() throws SQLException {
+		if (this.persons.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = this.conn.prepareStatement(PERSON_INSERT)) {
+			for (PersonRow p : this.persons) {
+				ps.setString(1, p.uuid);
+				ps.setString(2, p.lastName);
+				ps.setString(3, p.firstName);
+				Integer addressId = this.find(this.addressIds, p.address, "address");
+				if (addressId != null) {
+					ps.setInt(4, addressId);
+					ps.addBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	/**
+	 * Looks up every person referred to by the buffered emails, stores, sales
+	 * and service lines in one go.
+	 */
+	private void resolvePersons() throws SQLException {
+		Set<String> uuids = new LinkedHashSet<>();
+		for (EmailRow e : this.emails) {
+			uuids.add(e.personUuid);
+		}
+		for (StoreRow s : this.stores) {
+			uuids.add(s.managerUuid);
+		}
+		for (SaleRow s : this.sales) {
+			uuids.add(s.customerUuid);
+			uuids.add(s.salesPersonUuid);
+		}
+		for (LineRow line : this.lines) {
+			if (line.kind == SERVICE) {
+				uuids.add(line.text);
+			}
+		}
+		this.resolve("Person", "uuid", "personId", uuids, this.personIds);
+	}
+
+	private void writeEmails() throws SQLException {
+		if (this.emails.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = this.conn.prepareStatement(EMAIL_INSERT)) {
+			for (EmailRow e : this.emails) {
+				Integer personId = this.find(this.personIds, e.personUuid, "person with uuid");
+				if (personId != null) {
+					ps.setString(1, e.email);
+					ps.setInt(2, personId);
+					ps.addBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private void writeStores() throws SQLException {
+		if (this.stores.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = this.conn.prepareStatement(STORE_INSERT)) {
+			for (StoreRow s : this.stores) {
+				Integer personId = this.find(this.personIds, s.managerUuid, "person with uuid");
+				Integer addressId = this.find(this.addressIds, s.address, "address");
+				if (personId != null && addressId != null) {
+					ps.setString(1, s.storeCode);
+					ps.setInt(2, personId);
+					ps.setInt(3, addressId);
+					ps.addBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	private void writeSales() throws SQLException {
+		if (this.sales.isEmpty()) {
+			return;
+		}
+		Set<String> storeCodes = new LinkedHashSet<>();
+		for (SaleRow s : this.sales) {
+			storeCodes.add(s.storeCode);
+		}
+		this.resolve("Store", "storeCode", "storeId", storeCodes, this.storeIds);
+		try (PreparedStatement ps = this.conn.prepareStatement(SALE_INSERT)) {
+			for (SaleRow s : this.sales) {
+				Integer customerId = this.find(this.personIds, s.customerUuid, "person with uuid");
+				Integer salesPersonId = this.find(this.personIds, s.salesPersonUuid, "person with uuid");
+				Integer storeId = this.find(this.storeIds, s.storeCode, "store with storeCode");
+				if (customerId != null && salesPersonId != null && storeId != null) {
+					ps.setString(1, s.saleCode);
+					ps.setInt(2, storeId);
+					ps.setInt(3, customerId);
+					ps.setInt(4, salesPersonId);
+					ps.setString(5, s.saleDate);
+					ps.addBatch();
+				}
+			}
+			ps.executeBatch();
+		}
+	}
+
+	/**
+	 * Inserts the sale lines with one statement per kind of line, each with
+	 * the same columns as the matching {@link SalesData} method.
+	 */
+	private void writeLines() throws SQLException {
+		if (this.lines.isEmpty()) {
+			return;
+		}
+		Set<String> saleCodes = new LinkedHashSet<>();
+		Set<String> itemCodes = new LinkedHashSet<>();
+		for (LineRow line : this.lines) {
+			saleCodes.add(line.saleCode);
+			itemCodes.add(line.itemCode);
+		}
+		this.resolve("Sale", "saleCode", "saleId", saleCodes, this.saleIds);
+		this.resolve("Item", "code", "itemId", itemCodes, this.itemIds);
+
+		String[] queries = { PRODUCT_INSERT, LEASE_INSERT, SERVICE_INSERT, DATA_INSERT, VOICE_INSERT };
+		PreparedStatement[] statements = new PreparedStatement[queries.length];
+		try {
+			for (LineRow line : this.lines) {
+				Integer itemId = this.find(this.itemIds, line.itemCode, "item with code");
+				Integer saleId = this.find(this.saleIds, line.saleCode, "sale with saleCode");
+				Integer servicerId = (line.kind == SERVICE) ? this.find(this.personIds, line.text, "person with uuid")
+						: Integer.valueOf(0);
+				if (itemId == null || saleId == null || servicerId == null) {
+					continue;
+				}
+				PreparedStatement ps = statements[line.kind];
+				if (ps == null) {
+					ps = this.conn.prepareStatement(queries[line.kind]);
+					statements[line.kind] = ps;
+				}
+				switch (line.kind) {
+				case PRODUCT:
+					ps.setInt(1, saleId);
+					ps.setString(2, "P");
+					ps.setInt(3, itemId);
+					break;
+				case LEASE:
+					ps.setInt(1, itemId);
+					ps.setInt(2, saleId);
+					ps.setString(3, "L");
+					ps.setString(4, line.startDate);
+					ps.setString(5, line.endDate);
+					break;
+				case SERVICE:
+					ps.setInt(1, itemId);
+					ps.setInt(2, saleId);
+					ps.setDouble(3, line.quantity);
+					ps.setInt(4, servicerId);
+					break;
+				case DATA:
+					ps.setInt(1, saleId);
+					ps.setInt(2, itemId);
+					ps.setDouble(3, line.quantity);
+					break;
+				default:
+					ps.setInt(1, itemId);
+					ps.setInt(2, saleId);
+					ps.setString(3, line.text);
+					ps.setInt(4, line.days);
+				}
+				ps.addBatch();
+			}
+			for (PreparedStatement ps : statements) {
+				if (ps != null) {
+					ps.executeBatch();
+				}
+			}
+		} finally {
+			for (PreparedStatement ps : statements) {
+				if (ps != null) {
+					ps.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Looks up the ids of the keys not already in {@code ids}, with one query
+	 * per {@value #LOOKUP_SIZE} keys, and adds those spelled exactly as found.
+	 * The keys left over are looked up one at a time.
+	 */
+	private void resolve(String table, String keyColumn, String idColumn, Collection<String> keys,
+			Map<String, Integer> ids) throws SQLException {
+		Set<String> missing = new LinkedHashSet<>();
+		for (String key : keys) {
+			if (key != null && !ids.containsKey(key)) {
+				missing.add(key);
+			}
+		}
+		String select = "SELECT " + keyColumn + "," + idColumn + " FROM " + table + " WHERE " + keyColumn;
+		for (List<String> chunk : chunks(missing)) {
+			try (PreparedStatement ps = this.conn.prepareStatement(select + " IN " + placeholders(chunk.size()))) {
+				for (int i = 0; i < chunk.size(); i++) {
+					ps.setString(i + 1, chunk.get(i));
+				}
+				try (ResultSet rs = ps.executeQuery()) {
+					while (rs.next()) {
+						String found = rs.getString(1);
+						if (missing.remove(found)) {
+							ids.put(found, rs.getInt(2));
+						}
+					}
+				}
+			}
+		}
+		if (missing.isEmpty()) {
+			return;
+		}
+		try (PreparedStatement ps = this.conn.prepareStatement(select + " = ?")) {
+			for (String key : missing) {
+				ps.setString(1, key);
+				try (ResultSet rs = ps.executeQuery()) {
+					if (rs.next()) {
+						ids.put(key, rs.getInt(2));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the id of {@code key}, or logs that it could not be located and
+	 * returns null.
+	 */
+	private Integer find(Map<String, Integer> ids, String key, String what) {
+		Integer id = ids.get(key);
+		if (id == null) {
+			LOGGER.error("Could not locate " + what + " = " + String.valueOf(key).replace('\0', ','));
+		}
+		return id;
+	}
+
+	private static List<List<String>> chunks(Collection<String> keys) {
+		List<List<String>> chunks = new ArrayList<>();
+		List<String> chunk = new ArrayList<>(Math.min(keys.size(), LOOKUP_SIZE));
+		for (String key : keys) {
+			if (chunk.size() == LOOKUP_SIZE) {
+				chunks.add(chunk);
+				chunk = new ArrayList<>(LOOKUP_SIZE);
+			}
+			chunk.add(key);
+		}
+		if (!chunk.isEmpty()) {
+			chunks.add(chunk);
+		}
+		return chunks;
+	}
+
+	private static String placeholders(int n) {
+		StringBuilder sb = new StringBuilder(2 * n + 1);
+		sb.append('(');
+		for (int i = 0; i < n; i++) {
+			sb.append((i == 0) ? "?" : ",?");
+		}
+		return sb.append(')').toString();
+	}
+
+}
@@ -1,37 +1,51 @@
 package com.yrl;
 
+import java.io.File;
 import java.util.Comparator;
 import java.util.Map;
 
 /**
  * Authors: Amy Nguyen and Naomi Post
  * Date: 2024-04-03
- * This program prints the 3 reports.
+ * This program prints the 3 reports. If a snapshot file is given as the first
+ * argument the data is read from it; if it does not exist yet, the data is
+ * loaded from the database, once per table, and the snapshot is written for
+ * the next run. The reports only need each sale's line count and totals, so
+ * sale lines are only loaded if something asks for them. The connection pool
+ * is shut down, logging its metrics, when the reports are done.
  */
 public class SalesReport {
 
 	public static void main(String[] args) {
+		try {
+			printReports(args);
+		} finally {
+			ConnectionFactory.shutdown();
+		}
+	}
 
-		Map<String, Person> personMap = DatabaseLoader.loadPersons();
-		Map<String, Store> storeMap = DatabaseLoader.loadStores();
-		Map<String, Item> itemMap = DatabaseLoader.loadItems();
-		Map<String, Sale> saleMap = DatabaseLoader.loadSales();
-		Map<String, Item> saleItemMap = DatabaseLoader.loadSalesItems(saleMap);
+	private static void printReports(String[] args) {
+
+		Map<String, Sale> saleMap;
+		if (args.length > 0 && new File(args[0]).exists()) {
+			saleMap = Snapshot.open(args[0]).getSaleMap();
+		} else {
+			DatabaseSession session = new DatabaseSession();
+			saleMap = session.getSaleMap();
+			if (args.length > 0) {
+				SnapshotWriter.write(args[0], session.getPersonMap(), session.getItemMap(), session.getStoreMap(),
+						saleMap);
+			}
+		}
 		
 		LinkedList<Sale> salesLinkedListCustomer = new LinkedList<Sale>();
-		for(Sale sale : saleMap.values()) {
-			salesLinkedListCustomer.add(sale);
-		}
+		salesLinkedListCustomer.addAll(saleMap.values());
 		
 		LinkedList<Sale> salesLinkedListValue = new LinkedList<Sale>();
-		for(Sale sale : saleMap.values()) {
-			salesLinkedListValue.add(sale);
-		}
+		salesLinkedListValue.addAll(saleMap.values());
 		
 		LinkedList<Sale> salesLinkedListStore = new LinkedList<Sale>();
-		for(Sale sale : saleMap.values()) {
-			salesLinkedListStore.add(sale);
-		}
+		salesLinkedListStore.addAll(saleMap.values());
 
 		ReportUtils.printSalesCustomer(salesLinkedListCustomer);
 		ReportUtils.printSalesValue(salesLinkedListValue);
@@ -7,24 +7,31 @@ public class Service extends Item {
 
 	private double numHours;
 	private Person servicer;
-	final private double TAX_RATE = .035;
-	private double hourlyPrice;
+	static final long TAX_RATE_PER_MILLE = 35;
 
 	public Service(String code, String name, double hourlyPrice, double numHours, Person servicer) {
-		super(code, name);
+		super(new ItemDefinition(code, name, Money.toCents(hourlyPrice)));
 		this.numHours = numHours;
 		this.servicer = servicer;
-		this.hourlyPrice = hourlyPrice;
 	}
 
 	
 	public Service(String code, String name, double hourlyPrice) {
-		super(code, name);
-		this.hourlyPrice = hourlyPrice;
+		super(new ItemDefinition(code, name, Money.toCents(hourlyPrice)));
+	}
+
+	public Service(ItemDefinition definition, double numHours, Person servicer) {
+		super(definition);
+		this.numHours = numHours;
+		this.servicer = servicer;
 	}
 
 	public double getHourlyPrice() {
-		return this.hourlyPrice;
+		return this.getDefinition().getPrice();
+	}
+	
+	public long getHourlyPriceCents() {
+		return this.getDefinition().getPriceCents();
 	}
 
 	public double getNumHours() {
@@ -46,22 +53,30 @@ public class Service extends Item {
 	/**
 	 * This method gets the total values before tax based on the number of hours of the service. 
 	 */
-	public double getSubTotal() {
-		double subTotal = this.getHourlyPrice() * this.getNumHours();
-		return Math.round(subTotal * 100) / 100.0;
+	@Override
+	public long getSubTotalCents() {
+		return subTotalCents(this.getHourlyPriceCents(), this.getNumHours());
 	}
 	
 	/**
 	 * This method gets the tax. 
 	 */
-	public double getTaxes() {
-		return Math.round(this.getSubTotal() * TAX_RATE * 100) / 100.0;
+	@Override
+	public long getTaxesCents() {
+		return taxCents(this.getSubTotalCents());
 	}
-	
+
+	/**
+	 * Returns the subtotal of {@code numHours} hours at the given hourly price.
+	 */
+	static long subTotalCents(long hourlyPriceCents, double numHours) {
+		return Money.multiply(hourlyPriceCents, numHours);
+	}
+
 	/**
-	 * This method gets the total values after tax. 
+	 * Returns the tax on a service subtotal.
 	 */
-	public double getGrandTotal() {
-		return this.getSubTotal() + this.getTaxes();
+	static long taxCents(long subTotalCents) {
+		return Money.tax(subTotalCents, TAX_RATE_PER_MILLE);
 	}
 }
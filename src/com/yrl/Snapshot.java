@@ -0,0 +1,456 @@
+package com.yrl;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A data set written by {@link SnapshotWriter}, mapped into memory. Nothing is
+ * decoded when the snapshot is opened; each person, store, item or sale is
+ * built the first time it is asked for, together with whatever it refers to,
+ * and cached so every reference to it yields the same object. A store's sales
+ * are built the first time {@link Store#getSales()} is called. A sale comes
+ * with its line count and totals only; its lines are decoded the first time
+ * {@link Sale#getItems()} is called. Strings are decoded once per id, and
+ * catalog items and lines with the same code, name and price share one
+ * {@link ItemDefinition}.
+ *
+ * The file is a header, seven sections and a trailer, all big-endian:
+ * <ul>
+ * <li>header: {@code MAGIC}, {@code VERSION}</li>
+ * <li>addresses: street, city, state and zip string ids, one int column
+ * each</li>
+ * <li>persons: uuid, last name and first name string ids, address index, then
+ * {@code n + 1} email start offsets and the email string ids</li>
+ * <li>items (the catalog) and lines (every sale's items, sale by sale): a
+ * {@link LineType} code byte column, code and name string ids, price in cents
+ * as a long, quantity as a double ({@link LineType#quantityOf}), a reference (the servicer's person index for a
+ * service, the phone number's string id for voice), and lease start and end
+ * dates as epoch days</li>
+ * <li>stores: code string id, manager person index, address index, then
+ * {@code n + 1} sale list start offsets and the sale indexes</li>
+ * <li>sales: code string id, store, customer and salesperson indexes, date as
+ * an epoch day, then {@code n + 1} line start offsets, then subtotal and tax in
+ * cents as two long columns</li>
+ * <li>strings: {@code n + 1} byte offsets, then the UTF-8 bytes</li>
+ * <li>trailer: per section its offset (long), row count and listed count, then
+ * {@code MAGIC}</li>
+ * </ul>
+ * A missing reference or string is -1, a missing date {@code NO_DATE}. The
+ * first "listed" rows of a section were the entries of the map it was written
+ * from; the rest were only referenced.
+ *
+ * A snapshot is not thread-safe, and files over 2 GB are not supported.
+ */
+public class Snapshot {
+
+	public static final int MAGIC = 0x59524C53;
+	public static final int VERSION = 2;
+
+	static final int ADDRESSES = 0;
+	static final int PERSONS = 1;
+	static final int ITEMS = 2;
+	static final int STORES = 3;
+	static final int SALES = 4;
+	static final int LINES = 5;
+	static final int STRINGS = 6;
+	static final int NUM_SECTIONS = 7;
+
+	static final int NO_DATE = Integer.MIN_VALUE;
+
+	static final byte TYPE_NONE = -1;
+
+	private static final int TRAILER_SIZE = NUM_SECTIONS * 16 + 4;
+
+	private final MappedByteBuffer buffer;
+	private final int[] offsets;
+	private final int[] counts;
+	private final int[] listed;
+
+	private final String[] strings;
+	private final Address[] addresses;
+	private final Person[] persons;
+	private final Item[] items;
+	private final Store[] stores;
+	private final Sale[] sales;
+	private final Map<Integer, ItemDefinition> definitions;
+
+	private Snapshot(MappedByteBuffer buffer, int[] offsets, int[] counts, int[] listed) {
+		this.buffer = buffer;
+		this.offsets = offsets;
+		this.counts = counts;
+		this.listed = listed;
+		this.strings = new String[counts[STRINGS]];
+		this.addresses = new Address[counts[ADDRESSES]];
+		this.persons = new Person[counts[PERSONS]];
+		this.items = new Item[counts[ITEMS]];
+		this.stores = new Store[counts[STORES]];
+		this.sales = new Sale[counts[SALES]];
+		this.definitions = new HashMap<>();
+	}
+
+	/**
+	 * Maps the snapshot at {@code filePath} and checks its header and trailer.
+	 *
+	 * @param filePath
+	 * @return snapshot
+	 */
+	public static Snapshot open(String filePath) {
+		try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Snapshot too large: " + filePath);
+			}
+			if (size < 8 + TRAILER_SIZE) {
+				throw new IllegalArgumentException("Not a snapshot: " + filePath);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt(0) != MAGIC || buffer.getInt((int) size - 4) != MAGIC) {
+				throw new IllegalArgumentException("Not a snapshot: " + filePath);
+			}
+			if (buffer.getInt(4) != VERSION) {
+				throw new IllegalArgumentException("Unsupported snapshot version " + buffer.getInt(4) + ": " + filePath);
+			}
+			int[] offsets = new int[NUM_SECTIONS];
+			int[] counts = new int[NUM_SECTIONS];
+			int[] listed = new int[NUM_SECTIONS];
+			int t = (int) size - TRAILER_SIZE;
+			for (int i = 0; i < NUM_SECTIONS; i++) {
+				offsets[i] = (int) buffer.getLong(t + i * 16);
+				counts[i] = buffer.getInt(t + i * 16 + 8);
+				listed[i] = buffer.getInt(t + i * 16 + 12);
+			}
+			return new Snapshot(buffer, offsets, counts, listed);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public int getPersonCount() {
+		return this.counts[PERSONS];
+	}
+
+	public int getItemCount() {
+		return this.counts[ITEMS];
+	}
+
+	public int getStoreCount() {
+		return this.counts[STORES];
+	}
+
+	public int getSaleCount() {
+		return this.counts[SALES];
+	}
+
+	/**
+	 * Returns the int at row {@code row} of the int column {@code column} of a
+	 * section with {@code n} rows, where the section's columns start at
+	 * {@code base}.
+	 */
+	private int intAt(int base, int column, int n, int row) {
+		return this.buffer.getInt(base + 4 * (column * n + row));
+	}
+
+	private String string(int id) {
+		if (id < 0) {
+			return null;
+		}
+		String s = this.strings[id];
+		if (s == null) {
+			int n = this.counts[STRINGS];
+			int base = this.offsets[STRINGS];
+			int start = this.buffer.getInt(base + 4 * id);
+			int end = this.buffer.getInt(base + 4 * (id + 1));
+			byte[] bytes = new byte[end - start];
+			this.buffer.get(base + 4 * (n + 1) + start, bytes);
+			s = new String(bytes, StandardCharsets.UTF_8);
+			this.strings[id] = s;
+		}
+		return s;
+	}
+
+	private static LocalDate date(int epochDay) {
+		return (epochDay == NO_DATE) ? null : LocalDate.ofEpochDay(epochDay);
+	}
+
+	private Address getAddress(int index) {
+		if (index < 0) {
+			return null;
+		}
+		Address a = this.addresses[index];
+		if (a == null) {
+			int base = this.offsets[ADDRESSES];
+			int n = this.counts[ADDRESSES];
+			a = new Address(this.string(this.intAt(base, 0, n, index)), this.string(this.intAt(base, 1, n, index)),
+					this.string(this.intAt(base, 2, n, index)), this.string(this.intAt(base, 3, n, index)));
+			this.addresses[index] = a;
+		}
+		return a;
+	}
+
+	/**
+	 * Get the person at the given index {@code index}, or null if it is -1.
+	 *
+	 * @param index
+	 * @return person
+	 */
+	public Person getPerson(int index) {
+		if (index < 0) {
+			return null;
+		}
+		Person p = this.persons[index];
+		if (p == null) {
+			int base = this.offsets[PERSONS];
+			int n = this.counts[PERSONS];
+			p = new Person(this.string(this.intAt(base, 0, n, index)), this.string(this.intAt(base, 1, n, index)),
+					this.string(this.intAt(base, 2, n, index)), this.getAddress(this.intAt(base, 3, n, index)));
+			int emailStart = this.intAt(base, 4, n, index);
+			int emailEnd = this.intAt(base, 4, n, index + 1);
+			int emails = base + 4 * (5 * n + 1);
+			for (int e = emailStart; e < emailEnd; e++) {
+				p.addEmail(this.string(this.buffer.getInt(emails + 4 * e)));
+			}
+			this.persons[index] = p;
+		}
+		return p;
+	}
+
+	/**
+	 * Get the catalog item at the given index {@code index}.
+	 *
+	 * @param index
+	 * @return item
+	 */
+	public Item getItem(int index) {
+		Item item = this.items[index];
+		if (item == null) {
+			item = this.decodeItem(this.offsets[ITEMS], this.counts[ITEMS], index);
+			this.items[index] = item;
+		}
+		return item;
+	}
+
+	/**
+	 * Builds the item at row {@code row} of an item section.
+	 */
+	private Item decodeItem(int base, int n, int row) {
+		byte type = this.buffer.get(base + row);
+		if (type == TYPE_NONE) {
+			return null;
+		}
+		int ints = base + n;
+		ItemDefinition definition = this.definition(this.buffer.getInt(ints + 4 * row),
+				this.buffer.getInt(ints + 4 * (n + row)), this.buffer.getLong(ints + 8 * n + 8 * row));
+		double quantity = this.buffer.getDouble(ints + 16 * n + 8 * row);
+		int ref = this.buffer.getInt(ints + 24 * n + 4 * row);
+		LocalDate startDate = date(this.buffer.getInt(ints + 28 * n + 4 * row));
+		LocalDate endDate = date(this.buffer.getInt(ints + 32 * n + 4 * row));
+		switch (LineType.fromCode(type)) {
+		case PRODUCT:
+			return new Product(definition);
+		case PURCHASE:
+			return new Purchase(definition);
+		case LEASE:
+			return new Lease(definition, startDate, endDate);
+		case DATA:
+			return new Data(definition, quantity);
+		case VOICE:
+			return new Voice(definition, this.string(ref), (int) quantity);
+		default:
+			return new Service(definition, quantity, this.getPerson(ref));
+		}
+	}
+
+	/**
+	 * Returns the shared definition for an item code, name and price. The first
+	 * definition decoded for a code is reused while the name and price agree;
+	 * names are compared by identity since each string id is decoded once.
+	 */
+	private ItemDefinition definition(int codeId, int nameId, long priceCents) {
+		String code = this.string(codeId);
+		String name = this.string(nameId);
+		ItemDefinition d = this.definitions.get(codeId);
+		if (d != null && d.getName() == name && d.getPriceCents() == priceCents) {
+			return d;
+		}
+		d = new ItemDefinition(code, name, priceCents);
+		this.definitions.putIfAbsent(codeId, d);
+		return d;
+	}
+
+	/**
+	 * Get the store at the given index {@code index}. Its sales are built when
+	 * they are first asked for.
+	 *
+	 * @param index
+	 * @return store
+	 */
+	public Store getStore(int index) {
+		if (index < 0) {
+			return null;
+		}
+		Store s = this.stores[index];
+		if (s == null) {
+			int base = this.offsets[STORES];
+			int n = this.counts[STORES];
+			s = new Store(this.string(this.intAt(base, 0, n, index)), this.getPerson(this.intAt(base, 1, n, index)),
+					this.getAddress(this.intAt(base, 2, n, index)));
+			this.stores[index] = s;
+			int saleStart = this.intAt(base, 3, n, index);
+			int saleEnd = this.intAt(base, 3, n, index + 1);
+			int saleRefs = base + 4 * (4 * n + 1);
+			s.deferSales(store -> {
+				for (int i = saleStart; i < saleEnd; i++) {
+					store.addSale(this.getSale(this.buffer.getInt(saleRefs + 4 * i)));
+				}
+			});
+		}
+		return s;
+	}
+
+	/**
+	 * Get the sale at the given index {@code index}. Its lines are decoded when
+	 * they are first asked for.
+	 *
+	 * @param index
+	 * @return sale
+	 */
+	public Sale getSale(int index) {
+		Sale sale = this.sales[index];
+		if (sale != null) {
+			return sale;
+		}
+		int base = this.offsets[SALES];
+		int n = this.counts[SALES];
+		Store store = this.getStore(this.intAt(base, 1, n, index));
+		if (this.sales[index] != null) {
+			return this.sales[index];
+		}
+		int lineStart = this.intAt(base, 5, n, index);
+		int lineEnd = this.intAt(base, 5, n, index + 1);
+		int totals = base + 4 * (6 * n + 1);
+		sale = new Sale(this.string(this.intAt(base, 0, n, index)), store, this.getPerson(this.intAt(base, 2, n, index)),
+				this.getPerson(this.intAt(base, 3, n, index)), date(this.intAt(base, 4, n, index)), lineEnd - lineStart,
+				this.buffer.getLong(totals + 8 * index), this.buffer.getLong(totals + 8 * (n + index)),
+				new LineRange(lineStart, lineEnd));
+		this.sales[index] = sale;
+		return sale;
+	}
+
+	/**
+	 * The lines of one sale, rows {@code [start, end)} of the lines section.
+	 */
+	private final class LineRange implements SaleItemSource {
+
+		private final int start;
+		private final int end;
+
+		private LineRange(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		private List<Item> decode() {
+			return decodeLines(this.start, this.end);
+		}
+
+		@Override
+		public void loadItems(Sale sale) {
+			sale.setItems(this.decode());
+		}
+
+		/**
+		 * Decodes each sale's own range, which need not be this one. Sales whose
+		 * lines are not deferred to a snapshot are rejected.
+		 */
+		@Override
+		public Map<Sale, List<Item>> fetchItems(List<Sale> sales) {
+			Map<Sale, List<Item>> result = new IdentityHashMap<>();
+			for (Sale s : sales) {
+				SaleItemSource source = s.getItemSource();
+				if (!(source instanceof LineRange)) {
+					throw new IllegalArgumentException("Lines of sale " + s.getSaleCode() + " are not in a snapshot");
+				}
+				result.put(s, ((LineRange) source).decode());
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Builds the lines in rows {@code [start, end)} of the lines section.
+	 */
+	private List<Item> decodeLines(int start, int end) {
+		List<Item> lines = new ArrayList<>(end - start);
+		for (int i = start; i < end; i++) {
+			lines.add(this.decodeItem(this.offsets[LINES], this.counts[LINES], i));
+		}
+		return lines;
+	}
+
+	/**
+	 * Returns the persons that were in the person map, keyed by UUID.
+	 *
+	 * @return personMap
+	 */
+	public Map<String, Person> getPersonMap() {
+		Map<String, Person> personMap = new HashMap<>();
+		for (int i = 0; i < this.listed[PERSONS]; i++) {
+			Person p = this.getPerson(i);
+			personMap.put(p.getUuid(), p);
+		}
+		return personMap;
+	}
+
+	/**
+	 * Returns the item catalog, keyed by item code.
+	 *
+	 * @return itemMap
+	 */
+	public Map<String, Item> getItemMap() {
+		Map<String, Item> itemMap = new HashMap<>();
+		for (int i = 0; i < this.listed[ITEMS]; i++) {
+			Item item = this.getItem(i);
+			itemMap.put(item.getCode(), item);
+		}
+		return itemMap;
+	}
+
+	/**
+	 * Returns the stores that were in the store map, keyed by store code.
+	 *
+	 * @return storeMap
+	 */
+	public Map<String, Store> getStoreMap() {
+		Map<String, Store> storeMap = new HashMap<>();
+		for (int i = 0; i < this.listed[STORES]; i++) {
+			Store s = this.getStore(i);
+			storeMap.put(s.getStoreCode(), s);
+		}
+		return storeMap;
+	}
+
+	/**
+	 * Returns the sales that were in the sale map, keyed by sale code.
+	 *
+	 * @return saleMap
+	 */
+	public Map<String, Sale> getSaleMap() {
+		Map<String, Sale> saleMap = new HashMap<>();
+		for (int i = 0; i < this.listed[SALES]; i++) {
+			Sale s = this.getSale(i);
+			saleMap.put(s.getSaleCode(), s);
+		}
+		return saleMap;
+	}
+
+}
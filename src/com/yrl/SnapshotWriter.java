@@ -0,0 +1,469 @@
+package com.yrl;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes a fully loaded data set to a binary snapshot that {@link Snapshot}
+ * can map back in. Every person, address, store, item, sale and sale line
+ * reachable from the given maps gets a dense index, object references become
+ * int indexes, strings become ids into one string table, and each section is
+ * written column by column straight to a buffered stream. Only the indexes are
+ * held in memory, never the encoded bytes.
+ *
+ * Sale lines are not collected up front: they are streamed, sale by sale, into
+ * one temporary file per column and copied into place afterwards. The lines of
+ * a sale that has not loaded them are fetched from its item source a batch of
+ * sales at a time and dropped once written, so the sale stays deferred.
+ *
+ * The layout is described in {@link Snapshot}.
+ */
+public class SnapshotWriter {
+
+	private static final int ITEM_COLUMNS = 8;
+	private static final int FETCH_SIZE = 1000;
+
+	/**
+	 * Assigns each distinct object, by identity, the next index.
+	 */
+	private static final class Index<T> {
+
+		private final Map<T, Integer> ids = new IdentityHashMap<>();
+		private final List<T> values = new ArrayList<>();
+
+		private int add(T value) {
+			Integer id = this.ids.get(value);
+			if (id == null) {
+				id = this.values.size();
+				this.ids.put(value, id);
+				this.values.add(value);
+			}
+			return id;
+		}
+
+		private int indexOf(T value) {
+			Integer id = (value == null) ? null : this.ids.get(value);
+			return (id == null) ? -1 : id;
+		}
+
+		private int size() {
+			return this.values.size();
+		}
+	}
+
+	private final Index<Address> addresses = new Index<>();
+	private final Index<Person> persons = new Index<>();
+	private final Index<Item> items = new Index<>();
+	private final Index<Store> stores = new Index<>();
+	/**
+	 * The item columns, written row by row to one temporary file each, so
+	 * they can be streamed in and copied out column by column.
+	 */
+	private static final class ColumnSpool implements Closeable {
+
+		private final Path[] files = new Path[ITEM_COLUMNS];
+		private final DataOutputStream[] columns = new DataOutputStream[ITEM_COLUMNS];
+		private int rows;
+
+		private ColumnSpool() throws IOException {
+			try {
+				for (int i = 0; i < ITEM_COLUMNS; i++) {
+					this.files[i] = Files.createTempFile("snapshot", ".col");
+					this.columns[i] = new DataOutputStream(
+							new BufferedOutputStream(Files.newOutputStream(this.files[i]), 1 << 16));
+				}
+			} catch (IOException e) {
+				this.close();
+				throw e;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			for (int i = 0; i < ITEM_COLUMNS; i++) {
+				if (this.columns[i] != null) {
+					this.columns[i].close();
+				}
+				if (this.files[i] != null) {
+					Files.deleteIfExists(this.files[i]);
+				}
+			}
+		}
+	}
+
+	private final Index<Sale> sales = new Index<>();
+	private final StringDictionary strings = new StringDictionary();
+	private final int[] listed = new int[Snapshot.NUM_SECTIONS];
+	private int[] lineStarts;
+
+	private DataOutputStream out;
+	private long position;
+
+	private SnapshotWriter() {
+	}
+
+	/**
+	 * Writes the data set held in the given maps to {@code filePath}. Persons,
+	 * stores and sales that are only referenced, such as a placeholder store
+	 * manager, are written too, but only the map entries are listed as map
+	 * entries again when the snapshot is loaded.
+	 *
+	 * @param filePath, personMap, itemMap, storeMap, saleMap
+	 */
+	public static void write(String filePath, Map<String, Person> personMap, Map<String, Item> itemMap,
+			Map<String, Store> storeMap, Map<String, Sale> saleMap) {
+		SnapshotWriter writer = new SnapshotWriter();
+		writer.collect(personMap, itemMap, storeMap, saleMap);
+		try (ColumnSpool catalog = new ColumnSpool(); ColumnSpool lines = new ColumnSpool()) {
+			for (Item item : writer.items.values) {
+				writer.spoolItem(catalog, item);
+			}
+			writer.spoolLines(lines);
+			writer.collectAddresses();
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(filePath), 1 << 16))) {
+				writer.out = out;
+				writer.writeAll(catalog, lines);
+			}
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Indexes every object reachable from the maps, except sale lines and
+	 * addresses, which are indexed once the lines are spooled. Map entries come
+	 * first, in map order, so an index below the section's listed count means
+	 * the object was a map entry.
+	 */
+	private void collect(Map<String, Person> personMap, Map<String, Item> itemMap, Map<String, Store> storeMap,
+			Map<String, Sale> saleMap) {
+		for (Person p : personMap.values()) {
+			this.persons.add(p);
+		}
+		for (Item item : itemMap.values()) {
+			this.items.add(item);
+		}
+		for (Store store : storeMap.values()) {
+			this.stores.add(store);
+		}
+		for (Sale sale : saleMap.values()) {
+			this.sales.add(sale);
+		}
+		this.listed[Snapshot.PERSONS] = this.persons.size();
+		this.listed[Snapshot.ITEMS] = this.items.size();
+		this.listed[Snapshot.STORES] = this.stores.size();
+		this.listed[Snapshot.SALES] = this.sales.size();
+		for (int i = 0; i < this.stores.size(); i++) {
+			for (Sale sale : this.stores.values.get(i).getSales()) {
+				this.sales.add(sale);
+			}
+		}
+		for (int i = 0; i < this.sales.size(); i++) {
+			Sale sale = this.sales.values.get(i);
+			Store store = sale.getStore();
+			if (store != null && this.stores.indexOf(store) < 0) {
+				this.stores.add(store);
+				for (Sale other : store.getSales()) {
+					this.sales.add(other);
+				}
+			}
+			this.addPerson(sale.getCustomer());
+			this.addPerson(sale.getSalesperson());
+		}
+		for (Store store : this.stores.values) {
+			this.addPerson(store.getManager());
+		}
+	}
+
+	/**
+	 * Writes the lines of every sale to {@code spool} in sale order, recording
+	 * where each sale's lines start, and indexes the servicers met on the way.
+	 * Consecutive sales still deferred to the same source are fetched together,
+	 * up to {@code FETCH_SIZE} at a time.
+	 */
+	private void spoolLines(ColumnSpool spool) throws IOException {
+		List<Sale> values = this.sales.values;
+		int n = values.size();
+		this.lineStarts = new int[n + 1];
+		int i = 0;
+		while (i < n) {
+			Sale sale = values.get(i);
+			SaleItemSource source = sale.getItemSource();
+			if (source == null) {
+				this.lineStarts[i++] = spool.rows;
+				this.spoolLines(spool, sale.getItems());
+				continue;
+			}
+			int first = i;
+			List<Sale> batch = new ArrayList<>();
+			while (i < n && batch.size() < FETCH_SIZE && values.get(i).getItemSource() == source) {
+				batch.add(values.get(i++));
+			}
+			Map<Sale, List<Item>> lines = source.fetchItems(batch);
+			for (Sale s : batch) {
+				this.lineStarts[first++] = spool.rows;
+				this.spoolLines(spool, lines.get(s));
+			}
+		}
+		this.lineStarts[n] = spool.rows;
+	}
+
+	private void spoolLines(ColumnSpool spool, List<Item> lines) throws IOException {
+		for (Item item : lines) {
+			if (item instanceof Service) {
+				this.addPerson(((Service) item).getServicer());
+			}
+			this.spoolItem(spool, item);
+		}
+	}
+
+	private void collectAddresses() {
+		for (Store store : this.stores.values) {
+			this.addAddress(store.getAddress());
+		}
+		for (Person p : this.persons.values) {
+			this.addAddress(p.getAddress());
+		}
+	}
+
+	private void addPerson(Person p) {
+		if (p != null) {
+			this.persons.add(p);
+		}
+	}
+
+	private void addAddress(Address a) {
+		if (a != null) {
+			this.addresses.add(a);
+		}
+	}
+
+	private void writeAll(ColumnSpool catalog, ColumnSpool lines) throws IOException {
+		long[] offsets = new long[Snapshot.NUM_SECTIONS];
+		int[] counts = new int[Snapshot.NUM_SECTIONS];
+		this.writeInt(Snapshot.MAGIC);
+		this.writeInt(Snapshot.VERSION);
+
+		offsets[Snapshot.ADDRESSES] = this.position;
+		counts[Snapshot.ADDRESSES] = this.addresses.size();
+		this.writeAddresses();
+
+		offsets[Snapshot.PERSONS] = this.position;
+		counts[Snapshot.PERSONS] = this.persons.size();
+		this.writePersons();
+
+		offsets[Snapshot.ITEMS] = this.position;
+		counts[Snapshot.ITEMS] = catalog.rows;
+		this.copy(catalog);
+
+		offsets[Snapshot.STORES] = this.position;
+		counts[Snapshot.STORES] = this.stores.size();
+		this.writeStores();
+
+		offsets[Snapshot.SALES] = this.position;
+		counts[Snapshot.SALES] = this.sales.size();
+		this.writeSales();
+
+		offsets[Snapshot.LINES] = this.position;
+		counts[Snapshot.LINES] = lines.rows;
+		this.copy(lines);
+
+		offsets[Snapshot.STRINGS] = this.position;
+		counts[Snapshot.STRINGS] = this.strings.size();
+		this.writeStrings();
+
+		for (int i = 0; i < Snapshot.NUM_SECTIONS; i++) {
+			this.writeLong(offsets[i]);
+			this.writeInt(counts[i]);
+			this.writeInt(this.listed[i]);
+		}
+		this.writeInt(Snapshot.MAGIC);
+	}
+
+	private void writeAddresses() throws IOException {
+		List<Address> values = this.addresses.values;
+		for (Address a : values) {
+			this.writeString(a.getStreet());
+		}
+		for (Address a : values) {
+			this.writeString(a.getCity());
+		}
+		for (Address a : values) {
+			this.writeString(a.getState());
+		}
+		for (Address a : values) {
+			this.writeString(a.getZip());
+		}
+	}
+
+	private void writePersons() throws IOException {
+		List<Person> values = this.persons.values;
+		for (Person p : values) {
+			this.writeString(p.getUuid());
+		}
+		for (Person p : values) {
+			this.writeString(p.getLastName());
+		}
+		for (Person p : values) {
+			this.writeString(p.getFirstName());
+		}
+		for (Person p : values) {
+			this.writeInt(this.addresses.indexOf(p.getAddress()));
+		}
+		int start = 0;
+		for (Person p : values) {
+			this.writeInt(start);
+			start += p.getEmails().size();
+		}
+		this.writeInt(start);
+		for (Person p : values) {
+			for (String email : p.getEmails()) {
+				this.writeString(email);
+			}
+		}
+	}
+
+	private void writeStores() throws IOException {
+		List<Store> values = this.stores.values;
+		for (Store s : values) {
+			this.writeString(s.getStoreCode());
+		}
+		for (Store s : values) {
+			this.writeInt(this.persons.indexOf(s.getManager()));
+		}
+		for (Store s : values) {
+			this.writeInt(this.addresses.indexOf(s.getAddress()));
+		}
+		int start = 0;
+		for (Store s : values) {
+			this.writeInt(start);
+			start += s.getSales().size();
+		}
+		this.writeInt(start);
+		for (Store s : values) {
+			for (Sale sale : s.getSales()) {
+				this.writeInt(this.sales.indexOf(sale));
+			}
+		}
+	}
+
+	private void writeSales() throws IOException {
+		List<Sale> values = this.sales.values;
+		for (Sale s : values) {
+			this.writeString(s.getSaleCode());
+		}
+		for (Sale s : values) {
+			this.writeInt(this.stores.indexOf(s.getStore()));
+		}
+		for (Sale s : values) {
+			this.writeInt(this.persons.indexOf(s.getCustomer()));
+		}
+		for (Sale s : values) {
+			this.writeInt(this.persons.indexOf(s.getSalesperson()));
+		}
+		for (Sale s : values) {
+			this.writeDate(s.getSaleDate());
+		}
+		for (int start : this.lineStarts) {
+			this.writeInt(start);
+		}
+		for (Sale s : values) {
+			this.writeLong(s.saleSubTotalCents());
+		}
+		for (Sale s : values) {
+			this.writeLong(s.saleTotalTaxCents());
+		}
+	}
+
+	/**
+	 * Adds a row to the item columns shared by the catalog and the sale lines.
+	 * A null line, left by an unknown item code, is written as
+	 * {@code TYPE_NONE}.
+	 */
+	private void spoolItem(ColumnSpool spool, Item item) throws IOException {
+		DataOutputStream[] columns = spool.columns;
+		LineType type = (item == null) ? null : LineType.of(item);
+		columns[0].writeByte((type == null) ? Snapshot.TYPE_NONE : type.code());
+		columns[1].writeInt(this.stringId((item == null) ? null : item.getCode()));
+		columns[2].writeInt(this.stringId((item == null) ? null : item.getName()));
+		columns[3].writeLong((item == null) ? 0 : item.getDefinition().getPriceCents());
+		columns[4].writeDouble((type == null) ? 0 : type.quantityOf(item));
+		if (item instanceof Service) {
+			columns[5].writeInt(this.persons.indexOf(((Service) item).getServicer()));
+		} else if (item instanceof Voice) {
+			columns[5].writeInt(this.stringId(((Voice) item).getPhoneNum()));
+		} else {
+			columns[5].writeInt(-1);
+		}
+		columns[6].writeInt(epochDay((item instanceof Lease) ? LocalDate.parse(((Lease) item).getStartDate()) : null));
+		columns[7].writeInt(epochDay((item instanceof Lease) ? LocalDate.parse(((Lease) item).getEndDate()) : null));
+		spool.rows++;
+	}
+
+	/**
+	 * Appends the spooled columns, in order, to the snapshot.
+	 */
+	private void copy(ColumnSpool spool) throws IOException {
+		for (int i = 0; i < ITEM_COLUMNS; i++) {
+			spool.columns[i].flush();
+			this.position += Files.copy(spool.files[i], this.out);
+		}
+	}
+
+	/**
+	 * Writes each string's UTF-8 byte offset, then the bytes themselves.
+	 */
+	private void writeStrings() throws IOException {
+		int n = this.strings.size();
+		int start = 0;
+		for (int i = 0; i < n; i++) {
+			this.writeInt(start);
+			start += this.strings.decode(i).getBytes(StandardCharsets.UTF_8).length;
+		}
+		this.writeInt(start);
+		for (int i = 0; i < n; i++) {
+			byte[] bytes = this.strings.decode(i).getBytes(StandardCharsets.UTF_8);
+			this.out.write(bytes);
+			this.position += bytes.length;
+		}
+	}
+
+	private int stringId(String value) {
+		return (value == null) ? -1 : this.strings.encode(value);
+	}
+
+	private static int epochDay(LocalDate date) {
+		return (date == null) ? Snapshot.NO_DATE : (int) date.toEpochDay();
+	}
+
+	private void writeString(String value) throws IOException {
+		this.writeInt(this.stringId(value));
+	}
+
+	private void writeDate(LocalDate date) throws IOException {
+		this.writeInt(epochDay(date));
+	}
+
+	private void writeInt(int value) throws IOException {
+		this.out.writeInt(value);
+		this.position += 4;
+	}
+
+	private void writeLong(long value) throws IOException {
+		this.out.writeLong(value);
+		this.position += 8;
+	}
+
+}
@@ -0,0 +1,302 @@
+package com.yrl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * A sorted list backed by an indexable skip list. Elements are kept in the
+ * order given by the comparator, and elements that compare equal keep their
+ * insertion order. Inserts, indexed reads and indexed removes run in expected
+ * O(log n) time.
+ */
+public class SortedSaleList<T> implements Iterable<T> {
+
+	private static final int MAX_LEVEL = 32;
+
+	/**
+	 * A skip list node. {@code span[i]} is the number of level 0 links between
+	 * this node and {@code next[i]}, which is what makes indexed access possible.
+	 */
+	private static class SkipNode<T> {
+
+		private T element;
+		private SkipNode<T>[] next;
+		private int[] span;
+
+		private SkipNode(T element, int level) {
+			this.element = element;
+			this.next = newNodeArray(level);
+			this.span = new int[level];
+		}
+	}
+
+	private final SkipNode<T> head;
+	private final Comparator<T> comparator;
+	private final Random random;
+	private final SkipNode<T>[] update;
+	private final int[] rank;
+	private int level;
+	private int size;
+	private int modCount;
+
+	public SortedSaleList(Comparator<T> c) {
+		this.comparator = c;
+		this.head = new SkipNode<>(null, MAX_LEVEL);
+		this.random = new Random();
+		this.update = newNodeArray(MAX_LEVEL);
+		this.rank = new int[MAX_LEVEL];
+		this.level = 1;
+		this.size = 0;
+	}
+
+	/**
+	 * Add the given value {@code x} at its sorted position, after any elements
+	 * that compare equal to it.
+	 *
+	 * @param x
+	 */
+	public void add(T x) {
+		SkipNode<T>[] update = this.update;
+		int[] rank = this.rank;
+
+		SkipNode<T> curr = this.head;
+		for (int i = this.level - 1; i >= 0; i--) {
+			rank[i] = (i == this.level - 1) ? 0 : rank[i + 1];
+			while (curr.next[i] != null && comparator.compare(curr.next[i].element, x) <= 0) {
+				rank[i] += curr.span[i];
+				curr = curr.next[i];
+			}
+			update[i] = curr;
+		}
+
+		int newLevel = this.randomLevel();
+		if (newLevel > this.level) {
+			for (int i = this.level; i < newLevel; i++) {
+				rank[i] = 0;
+				update[i] = this.head;
+				this.head.span[i] = this.size;
+			}
+			this.level = newLevel;
+		}
+
+		SkipNode<T> newNode = new SkipNode<>(x, newLevel);
+		for (int i = 0; i < newLevel; i++) {
+			newNode.next[i] = update[i].next[i];
+			update[i].next[i] = newNode;
+			newNode.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+			update[i].span[i] = (rank[0] - rank[i]) + 1;
+		}
+		for (int i = newLevel; i < this.level; i++) {
+			update[i].span[i]++;
+		}
+		this.size++;
+		this.modCount++;
+	}
+
+	/**
+	 * Add every value in {@code values}.
+	 *
+	 * @param values
+	 */
+	public void addAll(Iterable<T> values) {
+		for (T x : values) {
+			this.add(x);
+		}
+	}
+
+	/**
+	 * Get the value at the given index {@code index}.
+	 *
+	 * @param index
+	 */
+	public T get(int index) {
+		this.boundsCheck(index);
+		return this.getNode(index).element;
+	}
+
+	/**
+	 * Returns up to {@code limit} values starting at the given index
+	 * {@code offset}, in sorted order. Costs O(log n + limit).
+	 *
+	 * @param offset
+	 * @param limit
+	 * @return
+	 */
+	public List<T> page(int offset, int limit) {
+		if (offset < 0 || limit < 0) {
+			throw new IllegalArgumentException("Invalid page: " + offset + ", " + limit);
+		}
+		List<T> page = new ArrayList<>();
+		if (offset >= this.size) {
+			return page;
+		}
+		SkipNode<T> curr = this.getNode(offset);
+		while (curr != null && page.size() < limit) {
+			page.add(curr.element);
+			curr = curr.next[0];
+		}
+		return page;
+	}
+
+	/**
+	 * Returns the node at the given index {@code index} by following spans down
+	 * from the top level.
+	 *
+	 * @param index
+	 * @return
+	 */
+	private SkipNode<T> getNode(int index) {
+		int target = index + 1;
+		int traversed = 0;
+		SkipNode<T> curr = this.head;
+		for (int i = this.level - 1; i >= 0; i--) {
+			while (curr.next[i] != null && traversed + curr.span[i] <= target) {
+				traversed += curr.span[i];
+				curr = curr.next[i];
+			}
+			if (traversed == target) {
+				return curr;
+			}
+		}
+		throw new IllegalStateException("Corrupt skip list at index: " + index);
+	}
+
+	/**
+	 * Remove the value at the given index {@code index}. Returns element that was
+	 * removed.
+	 *
+	 * @param index
+	 */
+	public T remove(int index) {
+		this.boundsCheck(index);
+		SkipNode<T>[] update = this.update;
+		int target = index + 1;
+		int traversed = 0;
+		SkipNode<T> curr = this.head;
+		for (int i = this.level - 1; i >= 0; i--) {
+			while (curr.next[i] != null && traversed + curr.span[i] < target) {
+				traversed += curr.span[i];
+				curr = curr.next[i];
+			}
+			update[i] = curr;
+		}
+
+		SkipNode<T> removed = update[0].next[0];
+		for (int i = 0; i < this.level; i++) {
+			if (update[i].next[i] == removed) {
+				update[i].span[i] += removed.span[i] - 1;
+				update[i].next[i] = removed.next[i];
+			} else {
+				update[i].span[i]--;
+			}
+		}
+		while (this.level > 1 && this.head.next[this.level - 1] == null) {
+			this.level--;
+		}
+		this.size--;
+		this.modCount++;
+		return removed.element;
+	}
+
+	/**
+	 * Check the validity of the bounds by {@code index}.
+	 *
+	 * @param index
+	 */
+	private void boundsCheck(int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IllegalArgumentException("Invalid index: " + index);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <T> SkipNode<T>[] newNodeArray(int length) {
+		return (SkipNode<T>[]) new SkipNode[length];
+	}
+
+	/**
+	 * Picks the level of a new node: each extra level is kept with probability
+	 * one half.
+	 *
+	 * @return
+	 */
+	private int randomLevel() {
+		int newLevel = 1 + Integer.numberOfTrailingZeros(this.random.nextInt() | (1 << (MAX_LEVEL - 1)));
+		return Math.min(newLevel, MAX_LEVEL);
+	}
+
+	/**
+	 * This function returns the size of the list, the number of elements currently
+	 * stored in it.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * This function clears out the contents of the list, making it an empty list.
+	 */
+	public void clear() {
+		for (int i = 0; i < MAX_LEVEL; i++) {
+			this.head.next[i] = null;
+			this.head.span[i] = 0;
+		}
+		this.level = 1;
+		this.size = 0;
+		this.modCount++;
+	}
+
+	/**
+	 * Return {@code true} if the list has no element, {@code false} otherwise.
+	 *
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return (this.size == 0);
+	}
+
+	/**
+	 * This is the iterator in order to implement the enhanced for loop. It walks
+	 * the bottom level of the skip list in sorted order.
+	 * @return
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+
+			private SkipNode<T> next = head.next[0];
+			private int expectedModCount = modCount;
+
+			@Override
+			public boolean hasNext() {
+				return this.next != null;
+			}
+
+			@Override
+			public T next() {
+				if (modCount != this.expectedModCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (this.next == null) {
+					throw new NoSuchElementException();
+				}
+				T element = this.next.element;
+				this.next = this.next.next[0];
+				return element;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+}
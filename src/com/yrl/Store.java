@@ -3,6 +3,7 @@ package com.yrl;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * This class models the store: store code, manager's UUID, address, and a list of sales.
@@ -13,6 +14,7 @@ public class Store {
 	private Person manager;
 	private Address address;
 	private List<Sale> sales = new ArrayList<>();
+	private Consumer<Store> salesLoader;
 	
 	public Store(String storeCode, Person manager, Address address) {
 		super();
@@ -51,6 +53,30 @@ public class Store {
 	}
 	
 	public void addSale(Sale s) {
+		this.loadSales();
 		this.sales.add(s);
 	}
+	
+	public List<Sale> getSales() {
+		this.loadSales();
+		return sales;
+	}
+
+	/**
+	 * Leaves the sales of the store to {@code loader}, which adds them with
+	 * {@link #addSale(Sale)} the first time they are asked for.
+	 * 
+	 * @param loader
+	 */
+	void deferSales(Consumer<Store> loader) {
+		this.salesLoader = loader;
+	}
+
+	private void loadSales() {
+		if (this.salesLoader != null) {
+			Consumer<Store> loader = this.salesLoader;
+			this.salesLoader = null;
+			loader.accept(this);
+		}
+	}
 }
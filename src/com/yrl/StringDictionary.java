@@ -0,0 +1,64 @@
+package com.yrl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each distinct string a dense int id, in first-seen order, so that
+ * repeated values can be stored once and referenced by id.
+ */
+public class StringDictionary {
+
+	private final Map<String, Integer> ids;
+	private final List<String> values;
+
+	public StringDictionary() {
+		this.ids = new HashMap<>();
+		this.values = new ArrayList<>();
+	}
+
+	/**
+	 * Returns the id of {@code value}, assigning the next free id if it has not
+	 * been seen before.
+	 * 
+	 * @param value
+	 * @return id
+	 */
+	public int encode(String value) {
+		Integer id = this.ids.get(value);
+		if (id == null) {
+			id = this.values.size();
+			this.ids.put(value, id);
+			this.values.add(value);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the id of {@code value}, or -1 if it has not been seen.
+	 * 
+	 * @param value
+	 * @return id
+	 */
+	public int lookup(String value) {
+		Integer id = this.ids.get(value);
+		return (id == null) ? -1 : id;
+	}
+
+	/**
+	 * Returns the string with the given id {@code id}.
+	 * 
+	 * @param id
+	 * @return value
+	 */
+	public String decode(int id) {
+		return this.values.get(id);
+	}
+
+	public int size() {
+		return this.values.size();
+	}
+
+}
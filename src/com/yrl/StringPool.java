@@ -0,0 +1,126 @@
+package com.yrl;
+
+/**
+ * Canonicalizes the strings of one load, so a value that repeats across
+ * records, such as a city, a state code or a first name, is held once. A
+ * lookup can be made straight from a {@code char} range, so a value already in
+ * the pool costs no allocation. Not thread-safe; use one pool per thread.
+ */
+public class StringPool {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	private String[] table;
+	private int size;
+
+	public StringPool() {
+		this.table = new String[DEFAULT_CAPACITY];
+		this.size = 0;
+	}
+
+	/**
+	 * Returns the pooled string equal to {@code value}, adding {@code value} if
+	 * there is none.
+	 *
+	 * @param value
+	 * @return
+	 */
+	public String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+		int slot = this.find(value, 0, value.length(), value.hashCode());
+		if (this.table[slot] == null) {
+			return this.insert(slot, value);
+		}
+		return this.table[slot];
+	}
+
+	/**
+	 * Returns the pooled string holding {@code chars[start, end)}, creating it
+	 * if there is none.
+	 *
+	 * @param chars
+	 * @param start
+	 * @param end
+	 * @return
+	 */
+	public String intern(char[] chars, int start, int end) {
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + chars[i];
+		}
+		int slot = this.find(chars, start, end, hash);
+		if (this.table[slot] == null) {
+			return this.insert(slot, new String(chars, start, end - start));
+		}
+		return this.table[slot];
+	}
+
+	/**
+	 * This function returns the number of distinct strings in the pool.
+	 *
+	 * @return
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the slot holding the given characters, or the empty slot where
+	 * they belong. {@code hash} is their {@link String#hashCode()}.
+	 */
+	private int find(Object chars, int start, int end, int hash) {
+		int mask = this.table.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (true) {
+			String s = this.table[slot];
+			if (s == null || (s.hashCode() == hash && this.matches(s, chars, start, end))) {
+				return slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	private boolean matches(String s, Object chars, int start, int end) {
+		if (chars instanceof String) {
+			return s.equals(chars);
+		}
+		char[] c = (char[]) chars;
+		if (s.length() != end - start) {
+			return false;
+		}
+		for (int i = 0; i < s.length(); i++) {
+			if (s.charAt(i) != c[start + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String insert(int slot, String value) {
+		this.table[slot] = value;
+		this.size++;
+		if (2 * this.size > this.table.length) {
+			this.grow();
+		}
+		return value;
+	}
+
+	private void grow() {
+		String[] old = this.table;
+		this.table = new String[old.length * 2];
+		int mask = this.table.length - 1;
+		for (String s : old) {
+			if (s != null) {
+				int hash = s.hashCode();
+				int slot = (hash ^ (hash >>> 16)) & mask;
+				while (this.table[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				this.table[slot] = s;
+			}
+		}
+	}
+
+}
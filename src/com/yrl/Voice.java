@@ -7,23 +7,31 @@ public class Voice extends Item {
 
 	private int numDays;
 	private String phoneNum;
-	final private double TAX_RATE = .065;
-	private double pricePerPeriod;
+	static final long TAX_RATE_PER_MILLE = 65;
+	static final int DAYS_PER_PERIOD = 30;
 
 	public Voice(String code, String name, double pricePerPeriod, String phoneNum, int numDays) {
-		super(code, name);
+		super(new ItemDefinition(code, name, Money.toCents(pricePerPeriod)));
 		this.phoneNum = phoneNum;
 		this.numDays = numDays;
-		this.pricePerPeriod = pricePerPeriod;
 	}
 
 	public Voice(String code, String name, double pricePerPeriod) {
-		super(code, name);
-		this.pricePerPeriod = pricePerPeriod;
+		super(new ItemDefinition(code, name, Money.toCents(pricePerPeriod)));
+	}
+
+	public Voice(ItemDefinition definition, String phoneNum, int numDays) {
+		super(definition);
+		this.phoneNum = phoneNum;
+		this.numDays = numDays;
 	}
 	
 	public double getPricePerPeriod() {
-		return this.pricePerPeriod;
+		return this.getDefinition().getPrice();
+	}
+	
+	public long getPricePerPeriodCents() {
+		return this.getDefinition().getPriceCents();
 	}
 	
 	public String getPhoneNum() {
@@ -46,25 +54,31 @@ public class Voice extends Item {
 	 * This method gets the total values before tax based on the number of days purchased. 
 	 */
 	@Override
-	public double getSubTotal() {
-		double subTotal = this.getPricePerPeriod() * ((double)this.getNumDays() / 30);
-		return Math.round(subTotal * 100) / 100.0;
+	public long getSubTotalCents() {
+		return subTotalCents(this.getPricePerPeriodCents(), this.getNumDays());
 	}
 	
 	/**
 	 * This method gets the tax. 
 	 */
 	@Override
-	public double getTaxes() {
-		return Math.round(this.getSubTotal() * TAX_RATE * 100) / 100.0;
+	public long getTaxesCents() {
+		return taxCents(this.getSubTotalCents());
 	}
-	
+
 	/**
-	 * This method gets the total values after tax. 
+	 * Returns the subtotal of {@code numDays} days at the given price per
+	 * 30-day period.
 	 */
-	@Override
-	public double getGrandTotal() {
-		return this.getSubTotal() + this.getTaxes();
+	static long subTotalCents(long pricePerPeriodCents, int numDays) {
+		return Money.multiply(pricePerPeriodCents, numDays, DAYS_PER_PERIOD);
+	}
+
+	/**
+	 * Returns the tax on a voice subtotal.
+	 */
+	static long taxCents(long subTotalCents) {
+		return Money.tax(subTotalCents, TAX_RATE_PER_MILLE);
 	}
 	
 }